@@ -0,0 +1,89 @@
+package com.diegoip.order.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+
+/**
+ * Throughput de {@link RingBufferAsyncAppender} frente al {@code AsyncAppender} de Logback con varios
+ * hilos registrando a la vez. El appender de destino no hace nada, por lo que se mide solo el costo de
+ * encolar y entregar; ambos usan 1024 lugares, sin caller data y bloqueando cuando la cola se llena.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class AsyncAppenderBenchmark {
+
+    @Param({"LOGBACK_ASYNC", "RING_BUFFER"})
+    private String implementation;
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger logger = context.getLogger(AsyncAppenderBenchmark.class);
+    private Appender<ILoggingEvent> appender;
+
+    @Setup
+    public void setUp() {
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        UnsynchronizedAppenderBase<ILoggingEvent> target = new UnsynchronizedAppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                // Destino vacío: solo interesa el costo del appender asíncrono
+            }
+        };
+        target.setContext(context);
+        target.start();
+
+        if (implementation.equals("RING_BUFFER")) {
+            RingBufferAsyncAppender ring = new RingBufferAsyncAppender();
+            ring.setRingSize(1024);
+            ring.setDiscardingThreshold(0);
+            ring.addAppender(target);
+            appender = ring;
+        } else {
+            AsyncAppender async = new AsyncAppender();
+            async.setQueueSize(1024);
+            async.setDiscardingThreshold(0);
+            async.addAppender(target);
+            appender = async;
+        }
+        appender.setContext(context);
+        appender.setName(implementation);
+        appender.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        appender.stop();
+    }
+
+    @Benchmark
+    public void append() {
+        appender.doAppend(new LoggingEvent(Logger.FQCN, logger, Level.INFO, "Pedido {} creado", null, new Object[]{42}));
+    }
+}
@@ -0,0 +1,32 @@
+package com.diegoip.order.config;
+
+/**
+ * Mensajes de log representativos de {@code OrderService} y {@code ProductService} para los benchmarks.
+ */
+public enum LogLines {
+
+    /** Mensaje habitual sin datos sensibles. */
+    NO_PII("Se encontraron 42 pedidos para la consulta solicitada en la categoría Accesorios"),
+
+    /** Un DNI, como en la búsqueda de pedidos por DNI. */
+    ONE_DNI("Se encontraron 3 pedidos para el DNI: 45873219"),
+
+    /** Mensaje largo con tarjeta, teléfono, DNI y email (p. ej. el toString de un pedido). */
+    MIXED_LONG("Pedido creado exitosamente: Order(id=6650f1c2a8e4b71d2c9f0a11, numeroPedido=PED-2024-000123, "
+            + "dni=45873219, items=[Order.OrderItem(sku=LAPTOP-HP-001, productoNombre=Laptop HP Pavilion 15, "
+            + "cantidad=1, precioUnitario=2899.9), Order.OrderItem(sku=MOUSE-LOG-002, productoNombre=Mouse Logitech "
+            + "MX Master 3, cantidad=2, precioUnitario=349.5)], fecha=2024-05-24T10:15:30, estado=PENDIENTE, "
+            + "total=3598.9) - contacto cliente juan.perez@example.com, teléfono 987654321, pago con tarjeta "
+            + "4111111111111111 autorizado por la pasarela; referencia interna 2024-05-24/PED-2024-000123 "
+            + "procesada por el nodo ms-order-7f9c en 12 ms");
+
+    private final String message;
+
+    LogLines(String message) {
+        this.message = message;
+    }
+
+    public String message() {
+        return message;
+    }
+}
@@ -0,0 +1,187 @@
+package com.diegoip.order.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.joran.JoranConfigurator;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.joran.spi.JoranException;
+
+import com.diegoip.order.util.SensitiveType;
+import com.diegoip.order.util.SensitiveValue;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Costo de punta a punta de una configuración de Logback real por cada petición atendida.
+ *
+ * Cada operación registra las tres líneas que genera una petición típica a {@code OrderController} /
+ * {@code OrderService} (cuatro formas que se alternan: búsqueda por DNI, alta, búsqueda por ID y número no
+ * encontrado), desde varios hilos a la vez. La Log API se reemplaza por un servidor HTTP local que responde
+ * 202, los archivos van a un directorio temporal y la consola a un stream descartado (se mide el formateo,
+ * no la terminal).
+ *
+ * Configuraciones ({@code config}):
+ * - {@code CURRENT}: {@code logback-spring.xml} tal cual, con el muestreo de {@link SamplingTurboFilter}.
+ * - {@code CURRENT_UNSAMPLED}: la misma sin {@link SamplingTurboFilter}, para medir el pipeline completo
+ *   con todos los eventos.
+ * - {@code LEGACY}: {@code logback-legacy.xml}, la forma original con el {@code AsyncAppender} de Logback.
+ *
+ * {@link #requests} informa el throughput (peticiones y eventos por segundo) y {@link #requestLatency} la
+ * distribución del tiempo que pasa el hilo de la petición registrando; {@code -prof gc} agrega la
+ * asignación de memoria.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class LoggingPipelineBenchmark {
+
+    private static final int EVENTS_PER_REQUEST = 3;
+
+    @Param({"CURRENT", "CURRENT_UNSAMPLED", "LEGACY"})
+    private String config;
+
+    private LoggerContext context;
+    private Logger controller;
+    private Logger service;
+    private HttpServer logApi;
+    private final LongAdder logApiRequests = new LongAdder();
+    private final LongAdder logApiBytes = new LongAdder();
+    private Path logPath;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, JoranException {
+        logApi = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        logApi.createContext("/log/v1", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                logApiBytes.add(body.transferTo(OutputStream.nullOutputStream()));
+            }
+            logApiRequests.increment();
+            exchange.sendResponseHeaders(202, -1);
+            exchange.close();
+        });
+        logApi.setExecutor(Executors.newFixedThreadPool(2));
+        logApi.start();
+
+        logPath = Files.createTempDirectory("logging-benchmark");
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        System.setProperty("newrelic.config.license_key", "benchmark");
+
+        context = new LoggerContext();
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        context.putProperty("LOG_PATH", logPath.toString());
+        context.putProperty("NEW_RELIC_LOG_API_ENDPOINT",
+                "http://127.0.0.1:" + logApi.getAddress().getPort() + "/log/v1");
+        JoranConfigurator configurator = new JoranConfigurator();
+        configurator.setContext(context);
+        configurator.doConfigure(getClass().getResource(config.equals("LEGACY") ? "/logback-legacy.xml" : "/logback-spring.xml"));
+        if (config.equals("CURRENT_UNSAMPLED")) {
+            context.getTurboFilterList().removeIf(filter -> filter instanceof SamplingTurboFilter);
+        }
+
+        controller = context.getLogger("com.diegoip.order.controller.OrderController");
+        service = context.getLogger("com.diegoip.order.service.OrderService");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.stop();
+        logApi.stop(0);
+        System.setOut(originalOut);
+        System.out.println("Log API stub: " + logApiRequests.sum() + " lotes, " + logApiBytes.sum() + " bytes (gzip)");
+        try (Stream<Path> files = Files.walk(logPath)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Estado por hilo con la petición que sigue y el contador de eventos que JMH informa como tasa.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Traffic {
+
+        public long events;
+        private int next;
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void requests(Traffic traffic) {
+        logRequest(traffic.next++);
+        traffic.events += EVENTS_PER_REQUEST;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void requestLatency(Cursor cursor) {
+        logRequest(cursor.next++);
+    }
+
+    private void logRequest(int sequence) {
+        String dni = String.valueOf(40_000_000 + (sequence & 0xFFFF));
+        switch (sequence & 3) {
+            case 0 -> {
+                controller.info("GET /api/orders/dni/{} - Solicitando pedidos por DNI", SensitiveValue.dni(dni));
+                service.info("Buscando pedidos por DNI: {}", SensitiveValue.dni(dni));
+                service.info("Se encontraron {} pedidos para el DNI: {}", sequence & 7, SensitiveValue.dni(dni));
+            }
+            case 1 -> {
+                controller.info("POST /api/orders - Creando nuevo pedido para DNI: {}", SensitiveValue.dni(dni));
+                service.info("Creando nuevo pedido para DNI: {}", SensitiveValue.dni(dni));
+                service.info("Pedido creado exitosamente con número: {}", "PED-2024-" + sequence);
+            }
+            case 2 -> {
+                controller.info("GET /api/orders/{} - Solicitando pedido por ID", "6650f1c2a8e4b71d2c9f0a11");
+                service.info("Buscando pedido por ID: {}", "6650f1c2a8e4b71d2c9f0a11");
+                service.info("Pedido encontrado: {}", "PED-2024-000123");
+            }
+            default -> {
+                String numero = "PED-2024-" + sequence;
+                controller.info("GET /api/orders/numero/{} - Solicitando pedido por número",
+                        SensitiveValue.of(SensitiveType.GENERIC, numero));
+                service.info("Buscando pedido por número: {}", numero);
+                service.warn("Pedido no encontrado con número: {}", numero);
+            }
+        }
+    }
+}
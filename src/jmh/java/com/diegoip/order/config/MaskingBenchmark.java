@@ -0,0 +1,46 @@
+package com.diegoip.order.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.diegoip.order.util.LogMaskingEngine;
+
+/**
+ * Costo de ofuscación de {@link LogMaskingEngine}, el motor que comparten todos los componentes de logging,
+ * sobre mensajes representativos.
+ * Ejecutar con {@code -prof gc} para obtener los bytes asignados por operación (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MaskingBenchmark {
+
+    @Param({"NO_PII", "ONE_DNI", "MIXED_LONG"})
+    private LogLines line;
+
+    private String message;
+
+    @Setup
+    public void setUp() {
+        message = line.message();
+    }
+
+    @Benchmark
+    public String engine() {
+        return LogMaskingEngine.mask(message);
+    }
+}
@@ -0,0 +1,129 @@
+package com.diegoip.order.config;
+
+import com.diegoip.order.util.LogMaskingEngine;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtro que registra un único evento de acceso por petición a {@code /api}, en lugar de una línea INFO
+ * por paso en el controller y el servicio (que quedan en DEBUG).
+ *
+ * El evento lleva la ruta de Spring MVC (la plantilla, no la URI), sus variables con las sensibles
+ * ofuscadas, los datos que agregaron controllers y servicios en {@link RequestLogContext}, la cantidad y el
+ * tiempo de los comandos MongoDB, el status y la duración. Los mismos datos van en el MDC con el prefijo
+ * {@code access.} para que el JSON y la Log API los reciban como atributos.
+ *
+ * Se registra en INFO con el logger {@code com.diegoip.order.access}, que {@link SamplingTurboFilter} no
+ * limita; las respuestas 5xx y las excepciones en WARN.
+ */
+@Slf4j(topic = "com.diegoip.order.access")
+@Component
+@Order(2)
+@RequiredArgsConstructor
+public class AccessLogFilter implements Filter {
+
+    private static final String MDC_PREFIX = "access.";
+    private static final String ACCESS_FORMAT = "Acceso {} {} -> {} en {} ms {}";
+
+    private final NewRelicUriMaskingFilter routes;
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest httpRequest) || !(response instanceof HttpServletResponse httpResponse)
+                || !httpRequest.getRequestURI().startsWith(HttpSloMetricsConfig.API_PREFIX)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        RequestLogContext previous = RequestLogContext.begin();
+        Throwable failure = null;
+        try {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            RequestLogContext context = RequestLogContext.end(previous);
+            log(httpRequest, httpResponse, context, System.nanoTime() - start, failure);
+        }
+    }
+
+    private void log(HttpServletRequest request, HttpServletResponse response, RequestLogContext context,
+                     long elapsedNanos, Throwable failure) {
+        int status = failure != null ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+        boolean warn = status >= 500;
+        if (warn ? !log.isWarnEnabled() : !log.isInfoEnabled()) {
+            return;
+        }
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        String route = route(request, fields);
+        context.attributes().forEach((key, value) -> fields.put(key, String.valueOf(value)));
+        if (context.mongoCommands() > 0) {
+            fields.put("mongo.commands", String.valueOf(context.mongoCommands()));
+            fields.put("mongo.ms", String.valueOf(TimeUnit.NANOSECONDS.toMillis(context.mongoNanos())));
+        }
+        if (failure != null) {
+            fields.put("error", failure.getClass().getSimpleName());
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+
+        Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+        Map<String, String> mdc = previousMdc != null ? new HashMap<>(previousMdc) : new HashMap<>();
+        mdc.put(MDC_PREFIX + "method", request.getMethod());
+        mdc.put(MDC_PREFIX + "route", route);
+        mdc.put(MDC_PREFIX + "status", String.valueOf(status));
+        mdc.put(MDC_PREFIX + "duration.ms", String.valueOf(millis));
+        fields.forEach((key, value) -> mdc.put(MDC_PREFIX + key, value));
+        MDC.setContextMap(mdc);
+        try {
+            // Una sola plantilla: LOG_METRICS la agrupa y toma la duración de "{} ms". No se muestrea
+            // (cuota 0 en logback-spring.xml) porque es el único registro de la petición
+            Object[] arguments = {request.getMethod(), route, status, millis, fields};
+            if (warn) {
+                log.warn(ACCESS_FORMAT, arguments);
+            } else {
+                log.info(ACCESS_FORMAT, arguments);
+            }
+        } finally {
+            if (previousMdc != null) {
+                MDC.setContextMap(previousMdc);
+            } else {
+                MDC.clear();
+            }
+        }
+    }
+
+    /**
+     * Plantilla de la ruta, agregando a {@code fields} sus variables (las sensibles ofuscadas). Sin ruta de
+     * Spring MVC (404) se usa la URI ofuscada.
+     */
+    private String route(HttpServletRequest request, Map<String, String> fields) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null) {
+            return LogMaskingEngine.mask(request.getRequestURI());
+        }
+        NewRelicUriMaskingFilter.Route route = routes.routeFor(request, pattern);
+        fields.putAll(route.maskedVariables(NewRelicUriMaskingFilter.uriVariables(request)));
+        return route.template();
+    }
+}
@@ -0,0 +1,142 @@
+package com.diegoip.order.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Límite de peticiones concurrentes que se ajusta según la latencia observada (estilo gradient/AIMD).
+ *
+ * Las peticiones que terminan se acumulan por ventana. Al cerrar cada ventana se compara la latencia
+ * promedio de la ventana ({@code shortRtt}) con una referencia que se mueve lento ({@code longRtt}):
+ * <ul>
+ *     <li>Mientras la latencia no supere {@code tolerance} veces la referencia, el límite crece en
+ *     {@code sqrt(limit)}, siempre que se haya usado al menos la mitad.</li>
+ *     <li>Si la supera, el límite se multiplica por {@code tolerance * longRtt / shortRtt} (nunca menos de 0,5).</li>
+ *     <li>Una ventana con respuestas 5xx aplica además {@code backoffRatio}.</li>
+ * </ul>
+ * Cada nuevo valor se suaviza con {@code smoothing} y se acota entre {@code minLimit} y {@code maxLimit}.
+ * Cuando la latencia vuelve a la normal, la referencia se acerca a ella más rápido para que el límite
+ * se recupere.
+ *
+ * {@link #tryAcquire()} y {@link #release} no toman locks; solo el hilo que cierra la ventana recalcula.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    private static final double LONG_WINDOW_WEIGHT = 1.0 / 20;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final ConcurrencyLimitProperties.Group settings;
+    private final long windowNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicBoolean recalculating = new AtomicBoolean();
+
+    // Ventana actual
+    private final LongAdder windowSamples = new LongAdder();
+    private final LongAdder windowRttNanos = new LongAdder();
+    private final LongAdder windowFailures = new LongAdder();
+    private final LongAccumulator windowMaxInFlight = new LongAccumulator(Math::max, 0);
+    private volatile long windowStart;
+
+    private volatile double limit;
+    private volatile double longRttNanos;
+
+    AdaptiveConcurrencyLimit(ConcurrencyLimitProperties.Group settings) {
+        this.settings = settings;
+        this.windowNanos = settings.getWindow().toNanos();
+        this.limit = clamp(settings.getInitialLimit());
+        this.windowStart = System.nanoTime();
+    }
+
+    /**
+     * Reserva un lugar; si el límite está completo devuelve false y la petición debe rechazarse.
+     */
+    boolean tryAcquire() {
+        int current = inFlight.incrementAndGet();
+        if (current > (int) limit) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        windowMaxInFlight.accumulate(current);
+        return true;
+    }
+
+    /**
+     * Libera el lugar de una petición que terminó y registra su latencia.
+     */
+    void release(long startNanos, boolean failed) {
+        inFlight.decrementAndGet();
+        long now = System.nanoTime();
+        windowRttNanos.add(now - startNanos);
+        windowSamples.increment();
+        if (failed) {
+            windowFailures.increment();
+        }
+        if (now - windowStart >= windowNanos && recalculating.compareAndSet(false, true)) {
+            try {
+                closeWindow(now);
+            } finally {
+                recalculating.set(false);
+            }
+        }
+    }
+
+    private void closeWindow(long now) {
+        long samples = windowSamples.sum();
+        if (samples < settings.getMinWindowSamples()) {
+            // Poco tráfico: la ventana se extiende hasta tener muestras suficientes
+            return;
+        }
+        double shortRtt = (double) windowRttNanos.sumThenReset() / samples;
+        windowSamples.add(-samples);
+        long failures = windowFailures.sumThenReset();
+        long maxInFlight = windowMaxInFlight.getThenReset();
+        windowStart = now;
+
+        if (longRttNanos == 0) {
+            longRttNanos = shortRtt;
+        } else {
+            longRttNanos += (shortRtt - longRttNanos) * LONG_WINDOW_WEIGHT;
+            if (longRttNanos > 2 * shortRtt) {
+                // La latencia volvió a bajar: la referencia la sigue más rápido
+                longRttNanos = (longRttNanos + shortRtt) / 2;
+            }
+        }
+
+        double current = limit;
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, settings.getTolerance() * longRttNanos / shortRtt));
+        double target = current * gradient;
+        if (gradient >= 1.0 && maxInFlight * 2 >= current) {
+            target += Math.sqrt(current);
+        }
+        if (failures > 0) {
+            target *= settings.getBackoffRatio();
+        }
+        limit = clamp(current + (target - current) * settings.getSmoothing());
+    }
+
+    private double clamp(double value) {
+        return Math.max(settings.getMinLimit(), Math.min(settings.getMaxLimit(), value));
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    LongAdder getRejected() {
+        return rejected;
+    }
+
+    double getLongRttMillis() {
+        return longRttNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,69 @@
+package com.diegoip.order.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Límite adaptativo de concurrencia y descarte de carga delante de los controllers
+ * ({@code app.concurrency-limit.*}).
+ *
+ * Los límites máximos de lecturas y escrituras se acotan a los hilos de Tomcat menos
+ * {@code reservedThreads}: aunque el límite haya crecido con tráfico sano, una demora de MongoDB no puede
+ * ocupar todos los hilos con peticiones a {@code /api} y dejar sin respuesta a {@code /actuator/health}.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class ConcurrencyLimitConfig {
+
+    static final int DEFAULT_TOMCAT_MAX_THREADS = 200;
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.concurrency-limit", name = "enabled", matchIfMissing = true)
+    public ConcurrencyLimitFilter concurrencyLimitFilter(ConcurrencyLimitProperties properties,
+                                                         MeterRegistry meterRegistry, Environment environment) {
+        if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            // Con hilos virtuales Tomcat no tiene un pool fijo que agotar
+            log.info("Hilos virtuales activos: los límites de concurrencia no se acotan al pool de Tomcat");
+        } else {
+            capToWorkerThreads(properties, environment.getProperty("server.tomcat.threads.max", Integer.class,
+                    DEFAULT_TOMCAT_MAX_THREADS));
+        }
+        return new ConcurrencyLimitFilter(properties, meterRegistry);
+    }
+
+    /**
+     * Reduce en proporción los {@code maxLimit} de lecturas y escrituras para que su suma no supere
+     * {@code workerThreads - reservedThreads}. Falla el arranque si ni los {@code minLimit} entran.
+     */
+    static void capToWorkerThreads(ConcurrencyLimitProperties properties, int workerThreads) {
+        ConcurrencyLimitProperties.Group read = properties.getRead();
+        ConcurrencyLimitProperties.Group write = properties.getWrite();
+        int budget = workerThreads - properties.getReservedThreads();
+        int minimum = read.getMinLimit() + write.getMinLimit();
+        if (budget < minimum) {
+            throw new IllegalStateException("app.concurrency-limit: los min-limit de lecturas y escrituras ("
+                    + minimum + ") superan los hilos de Tomcat disponibles para /api (" + workerThreads + " - "
+                    + properties.getReservedThreads() + " reservados)");
+        }
+        int requested = read.getMaxLimit() + write.getMaxLimit();
+        if (requested <= budget) {
+            return;
+        }
+
+        int readMax = Math.max(read.getMinLimit(), (int) ((long) budget * read.getMaxLimit() / requested));
+        int writeMax = Math.max(write.getMinLimit(), budget - readMax);
+        readMax = budget - writeMax;
+        log.warn("Los max-limit de concurrencia (lecturas {}, escrituras {}) superan los {} hilos de Tomcat"
+                        + " disponibles para /api; se usan {} y {}",
+                read.getMaxLimit(), write.getMaxLimit(), budget, readMax, writeMax);
+        read.setMaxLimit(readMax);
+        write.setMaxLimit(writeMax);
+    }
+}
@@ -0,0 +1,113 @@
+package com.diegoip.order.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtro que limita las peticiones concurrentes a {@code /api} con un {@link AdaptiveConcurrencyLimit} para
+ * lecturas (GET y HEAD) y otro para escrituras. Cuando MongoDB se pone lento el límite baja y las
+ * peticiones que exceden se rechazan en el acto con 503 y {@code Retry-After}, en lugar de ocupar hilos de
+ * Tomcat; el resto de las rutas (actuator, health checks) nunca se limita.
+ *
+ * Va antes que los demás filtros de la aplicación: las peticiones rechazadas no se registran en el log de
+ * acceso, solo en {@code concurrency.limit.rejected}. Publica además {@code concurrency.limit} y
+ * {@code concurrency.limit.inflight} por {@code group}.
+ */
+@Order(0)
+public class ConcurrencyLimitFilter implements Filter {
+
+    public static final String LIMIT = "concurrency.limit";
+    public static final String IN_FLIGHT = "concurrency.limit.inflight";
+    public static final String REJECTED = "concurrency.limit.rejected";
+
+    private static final byte[] REJECTED_BODY =
+            "{\"message\":\"Servicio sobrecargado, reintente más tarde\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final AdaptiveConcurrencyLimit reads;
+    private final AdaptiveConcurrencyLimit writes;
+    private final String retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, MeterRegistry registry) {
+        this.reads = new AdaptiveConcurrencyLimit(properties.getRead());
+        this.writes = new AdaptiveConcurrencyLimit(properties.getWrite());
+        this.retryAfterSeconds = String.valueOf(Math.max(1, properties.getRetryAfter().toSeconds()));
+        register(registry, "read", reads);
+        register(registry, "write", writes);
+    }
+
+    private static void register(MeterRegistry registry, String group, AdaptiveConcurrencyLimit limit) {
+        Gauge.builder(LIMIT, limit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Límite actual de peticiones concurrentes")
+                .tag("group", group)
+                .register(registry);
+        Gauge.builder(IN_FLIGHT, limit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Peticiones en curso")
+                .tag("group", group)
+                .register(registry);
+        Gauge.builder(LIMIT + ".rtt.reference", limit, AdaptiveConcurrencyLimit::getLongRttMillis)
+                .description("Latencia de referencia con la que se ajusta el límite")
+                .tag("group", group)
+                .baseUnit("milliseconds")
+                .register(registry);
+        FunctionCounter.builder(REJECTED, limit.getRejected(), LongAdder::sum)
+                .description("Peticiones rechazadas con 503 por exceder el límite")
+                .tag("group", group)
+                .register(registry);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest httpRequest) || !(response instanceof HttpServletResponse httpResponse)
+                || !httpRequest.getRequestURI().startsWith(HttpSloMetricsConfig.API_PREFIX)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        AdaptiveConcurrencyLimit limit = isRead(httpRequest.getMethod()) ? reads : writes;
+        if (!limit.tryAcquire()) {
+            reject(httpResponse);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = httpResponse.getStatus() >= 500;
+        } finally {
+            limit.release(start, failed);
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(REJECTED_BODY.length);
+        response.getOutputStream().write(REJECTED_BODY);
+    }
+
+    private static boolean isRead(String method) {
+        return "GET".equals(method) || "HEAD".equals(method);
+    }
+
+    AdaptiveConcurrencyLimit reads() {
+        return reads;
+    }
+}
@@ -0,0 +1,72 @@
+package com.diegoip.order.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Límite adaptativo de peticiones concurrentes a {@code /api} ({@code app.concurrency-limit.*}), separado
+ * en lecturas (GET y HEAD) y escrituras. Ver {@link AdaptiveConcurrencyLimit}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    /** Activa el límite; si es false las peticiones nunca se rechazan. */
+    private boolean enabled = true;
+
+    /** Valor del header Retry-After de las respuestas 503. */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    /**
+     * Hilos de Tomcat ({@code server.tomcat.threads.max}) que nunca ocupan las peticiones a {@code /api},
+     * para que actuator (health checks incluidos) siga respondiendo con MongoDB lento. La suma de los
+     * {@code maxLimit} de lecturas y escrituras se reduce al arrancar si no deja esta reserva.
+     */
+    private int reservedThreads = 20;
+
+    /** Límite de las lecturas. */
+    private Group read = new Group(50, 8, 120);
+
+    /** Límite de las escrituras. */
+    private Group write = new Group(20, 4, 60);
+
+    @Data
+    public static class Group {
+
+        /** Límite inicial, antes de tener mediciones. */
+        private int initialLimit;
+
+        /** El límite nunca baja de este valor. */
+        private int minLimit;
+
+        /** El límite nunca supera este valor. */
+        private int maxLimit;
+
+        /** Cuánto puede crecer la latencia respecto de la de referencia antes de reducir el límite (1.5 = 50%). */
+        private double tolerance = 1.5;
+
+        /** Peso de cada nuevo cálculo sobre el límite actual (0 a 1). */
+        private double smoothing = 0.2;
+
+        /** Factor que se aplica al límite en una ventana con respuestas 5xx. */
+        private double backoffRatio = 0.9;
+
+        /** Duración de la ventana de medición. */
+        private Duration window = Duration.ofSeconds(1);
+
+        /** Mínimo de peticiones para cerrar una ventana; si no se alcanza, la ventana se extiende. */
+        private int minWindowSamples = 10;
+
+        public Group() {
+        }
+
+        Group(int initialLimit, int minLimit, int maxLimit) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.diegoip.order.config;
+
+import java.time.Duration;
+import java.util.TreeSet;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.diegoip.order.metrics.HttpSloObservationHandler;
+import com.diegoip.order.metrics.SloComplianceEndpoint;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+
+/**
+ * Histogramas de latencia por ruta de los controllers. Se apoya en el timer {@code http.server.requests}
+ * de Spring, cuyo tag {@code uri} es la plantilla de la ruta (nunca la URI real con DNIs). Junto al timer,
+ * {@link HttpSloObservationHandler} cuenta los requests que cumplen el objetivo.
+ */
+@Configuration
+@EnableConfigurationProperties(SloProperties.class)
+public class HttpSloMetricsConfig {
+
+    public static final String HTTP_SERVER_REQUESTS = "http.server.requests";
+    public static final String API_PREFIX = "/api";
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99, 0.999};
+
+    @Bean
+    public MeterFilter httpServerSloMeterFilter(SloProperties properties) {
+        TreeSet<Duration> limits = new TreeSet<>(properties.getBuckets());
+        limits.add(properties.getDefaultObjective());
+        properties.getRoutes().values().stream()
+                .filter(objective -> objective.getLatency() != null)
+                .forEach(objective -> limits.add(objective.getLatency()));
+        double[] slos = limits.stream().mapToDouble(Duration::toNanos).toArray();
+
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!HTTP_SERVER_REQUESTS.equals(id.getName()) || !isApiRoute(id.getTag("uri"))) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentiles(PERCENTILES)
+                        .percentilesHistogram(true)
+                        .serviceLevelObjectives(slos)
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+
+    @Bean
+    public HttpSloObservationHandler httpSloObservationHandler(MeterRegistry meterRegistry, SloProperties properties) {
+        return new HttpSloObservationHandler(meterRegistry, properties);
+    }
+
+    @Bean
+    public SloComplianceEndpoint sloComplianceEndpoint(MeterRegistry meterRegistry, SloProperties properties) {
+        return new SloComplianceEndpoint(meterRegistry, properties);
+    }
+
+    public static boolean isApiRoute(String uri) {
+        return uri != null && uri.startsWith(API_PREFIX);
+    }
+}
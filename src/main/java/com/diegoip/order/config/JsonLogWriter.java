@@ -0,0 +1,272 @@
+package com.diegoip.order.config;
+
+import com.diegoip.order.util.LogMaskingEngine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Escritor de JSON para eventos de log que codifica directamente a UTF-8 sobre un buffer de bytes
+ * reutilizable, sin armar Strings intermedios.
+ *
+ * Los textos se escapan mientras se escriben y {@link #maskedField} ofusca los datos sensibles en la misma
+ * pasada, usando {@link LogMaskingEngine#find}. Cada hilo reutiliza su propia instancia ({@link #local()}),
+ * por lo que el único objeto que se crea por evento es el arreglo final que se entrega al destino.
+ */
+final class JsonLogWriter {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[] MASK = LogMaskingEngine.MASK.getBytes();
+
+    private static final ThreadLocal<JsonLogWriter> LOCAL = ThreadLocal.withInitial(JsonLogWriter::new);
+
+    private final LogMaskingEngine.Match match = new LogMaskingEngine.Match();
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int count;
+    private boolean firstField = true;
+
+    /**
+     * Instancia del hilo actual, vacía y lista para escribir.
+     */
+    static JsonLogWriter local() {
+        JsonLogWriter writer = LOCAL.get();
+        writer.reset();
+        return writer;
+    }
+
+    void reset() {
+        // Evitar retener buffers muy grandes después de un evento excepcional (por ejemplo, una traza larga)
+        if (buffer.length > MAX_RETAINED_CAPACITY) {
+            buffer = new byte[INITIAL_CAPACITY];
+        }
+        count = 0;
+        firstField = true;
+    }
+
+    // ========== Estructura ==========
+
+    JsonLogWriter beginObject() {
+        writeByte('{');
+        firstField = true;
+        return this;
+    }
+
+    JsonLogWriter endObject() {
+        writeByte('}');
+        firstField = false;
+        return this;
+    }
+
+    /**
+     * Escribe el nombre de un campo cuyo valor lo escribe el llamador (por ejemplo, un objeto anidado).
+     */
+    JsonLogWriter name(String name) {
+        return name(null, name);
+    }
+
+    JsonLogWriter name(String prefix, String name) {
+        if (!firstField) {
+            writeByte(',');
+        }
+        firstField = false;
+        writeByte('"');
+        if (prefix != null) {
+            writeEscaped(prefix, 0, prefix.length());
+        }
+        writeEscaped(name, 0, name.length());
+        writeByte('"');
+        writeByte(':');
+        return this;
+    }
+
+    // ========== Campos ==========
+
+    /**
+     * Campo de texto; se omite si el valor es {@code null}.
+     */
+    JsonLogWriter field(String name, CharSequence value) {
+        if (value != null) {
+            name(name);
+            string(value);
+        }
+        return this;
+    }
+
+    JsonLogWriter field(String name, long value) {
+        name(name);
+        writeLong(value);
+        return this;
+    }
+
+    /**
+     * Campo de texto cuyo valor se ofusca mientras se escribe.
+     */
+    JsonLogWriter maskedField(String name, CharSequence value) {
+        return maskedField(null, name, value);
+    }
+
+    JsonLogWriter maskedField(String prefix, String name, CharSequence value) {
+        if (value != null) {
+            name(prefix, name);
+            maskedString(value);
+        }
+        return this;
+    }
+
+    JsonLogWriter string(CharSequence value) {
+        writeByte('"');
+        writeEscaped(value, 0, value.length());
+        writeByte('"');
+        return this;
+    }
+
+    JsonLogWriter maskedString(CharSequence value) {
+        writeByte('"');
+        int last = 0;
+        int length = value.length();
+        while (last < length && LogMaskingEngine.find(value, last, match)) {
+            writeEscaped(value, last, match.start());
+            writeEscaped(value, match.start(), match.start() + match.keepHead());
+            writeRaw(MASK, 0, MASK.length);
+            writeEscaped(value, match.tailFrom(), match.end());
+            last = match.end();
+        }
+        writeEscaped(value, last, length);
+        writeByte('"');
+        return this;
+    }
+
+    /**
+     * Bytes ya codificados (por ejemplo, una entrada escrita antes por otro {@code JsonLogWriter}).
+     */
+    JsonLogWriter raw(byte[] bytes) {
+        writeRaw(bytes, 0, bytes.length);
+        firstField = false;
+        return this;
+    }
+
+    JsonLogWriter rawAscii(String ascii) {
+        ensureCapacity(ascii.length());
+        for (int i = 0; i < ascii.length(); i++) {
+            buffer[count++] = (byte) ascii.charAt(i);
+        }
+        return this;
+    }
+
+    // ========== Salida ==========
+
+    int size() {
+        return count;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, count);
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, count);
+    }
+
+    // ========== Codificación ==========
+
+    private void writeEscaped(CharSequence value, int from, int to) {
+        // Peor caso: 6 bytes por carácter (\\u00XX); se reserva de a tramos para no chequear en cada byte
+        ensureCapacity((to - from) * 3);
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                if (count == buffer.length) {
+                    ensureCapacity(8);
+                }
+                buffer[count++] = (byte) c;
+            } else {
+                ensureCapacity(12);
+                if (c < 0x80) {
+                    writeEscapedAscii(c);
+                } else if (c < 0x800) {
+                    buffer[count++] = (byte) (0xC0 | (c >> 6));
+                    buffer[count++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer[count++] = (byte) (0xF0 | (codePoint >> 18));
+                    buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    // Surrogate sin pareja: no es UTF-8 válido
+                    buffer[count++] = '?';
+                } else {
+                    buffer[count++] = (byte) (0xE0 | (c >> 12));
+                    buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[count++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+    }
+
+    private void writeEscapedAscii(char c) {
+        buffer[count++] = '\\';
+        switch (c) {
+            case '"' -> buffer[count++] = '"';
+            case '\\' -> buffer[count++] = '\\';
+            case '\n' -> buffer[count++] = 'n';
+            case '\r' -> buffer[count++] = 'r';
+            case '\t' -> buffer[count++] = 't';
+            case '\b' -> buffer[count++] = 'b';
+            case '\f' -> buffer[count++] = 'f';
+            default -> {
+                buffer[count++] = 'u';
+                buffer[count++] = '0';
+                buffer[count++] = '0';
+                buffer[count++] = HEX[(c >> 4) & 0xF];
+                buffer[count++] = HEX[c & 0xF];
+            }
+        }
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            rawAscii(Long.toString(value));
+            return;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[count++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        int position = count + digits;
+        do {
+            buffer[--position] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value > 0);
+        count += digits;
+    }
+
+    private void writeByte(int b) {
+        if (count == buffer.length) {
+            ensureCapacity(1);
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    private void writeRaw(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, count, length);
+        count += length;
+    }
+
+    private void ensureCapacity(int additional) {
+        int required = count + additional;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length * 2));
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.diegoip.order.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.util.Duration;
+import com.diegoip.order.util.LogMaskingEngine;
+import com.newrelic.api.agent.Insights;
+import com.newrelic.api.agent.NewRelic;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Appender que convierte el tráfico de logs en métricas agregadas en lugar de enviar un evento por línea.
+ *
+ * Cada evento suma a un contador por logger, nivel y plantilla de mensaje (el {@code format} de la llamada,
+ * sin argumentos). Si la plantilla contiene {@code {} ms}, el argumento correspondiente se registra además
+ * como duración. Los contadores se publican en Micrometer ({@code logging.events} y
+ * {@code logging.template.duration}) y cada {@code publishInterval} se envía a New Relic un único evento
+ * {@code LogMetric} por serie con actividad en el intervalo.
+ *
+ * Los conteos son posteriores al muestreo: lo que descarta {@link SamplingTurboFilter} no llega a ningún
+ * appender y se cuenta aparte, en {@code logging.events.suppressed}.
+ *
+ * Las series se limitan a {@code maxSeries}; las plantillas nuevas que excedan el límite se agrupan como
+ * {@code (other)}.
+ *
+ * Debe recibir el evento original (fuera de {@link MaskingDispatchAppender}): la plantilla y los argumentos
+ * numéricos no se exponen en un {@link MaskedLoggingEvent}.
+ */
+public class LogMetricsAggregatingAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+    private static final String OTHER_TEMPLATE = "(other)";
+    private static final String EVENT_TYPE = "LogMetric";
+
+    private final Map<SeriesKey, Series> series = new ConcurrentHashMap<>();
+    private final AtomicInteger seriesCount = new AtomicInteger();
+    private final List<Meter> meters = new CopyOnWriteArrayList<>();
+
+    private Duration publishInterval = Duration.buildByMinutes(1);
+    private int maxSeries = 1000;
+
+    private ScheduledExecutorService publisher;
+    private LoggingPipelineMetrics metrics;
+    private Insights insights;
+
+    @Override
+    public void start() {
+        publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-metrics-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = publishInterval.getMilliseconds();
+        publisher.scheduleAtFixedRate(this::publish, interval, interval, TimeUnit.MILLISECONDS);
+        metrics = LoggingPipelineMetrics.forAppender(name);
+        super.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        metrics.event();
+        Series current = seriesFor(event);
+        current.count.increment();
+        if (current.durationArgument >= 0) {
+            recordDuration(current, event.getArgumentArray());
+        }
+    }
+
+    private Series seriesFor(ILoggingEvent event) {
+        String template = event.getMessage() != null ? event.getMessage() : "";
+        SeriesKey key = new SeriesKey(event.getLoggerName(), event.getLevel(), template);
+        Series existing = series.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (seriesCount.get() >= maxSeries) {
+            key = new SeriesKey(event.getLoggerName(), event.getLevel(), OTHER_TEMPLATE);
+            existing = series.get(key);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return series.computeIfAbsent(key, this::newSeries);
+    }
+
+    private Series newSeries(SeriesKey key) {
+        seriesCount.incrementAndGet();
+        // Una plantilla armada por concatenación podría traer datos personales: se ofusca una sola vez por serie
+        String template = LogMaskingEngine.mask(key.template());
+        Series created = new Series(key.logger(), key.level(), template, durationArgumentOf(key.template()));
+
+        meters.add(FunctionCounter.builder("logging.events", created.count, LongAdder::sum)
+                .description("Eventos de log por logger, nivel y plantilla")
+                .tag("logger", key.logger())
+                .tag("level", key.level().toString())
+                .tag("template", template)
+                .register(Metrics.globalRegistry));
+        if (created.durationArgument >= 0) {
+            created.timer = Timer.builder("logging.template.duration")
+                    .description("Duraciones informadas en los mensajes de log con {} ms")
+                    .tag("logger", key.logger())
+                    .tag("template", template)
+                    .register(Metrics.globalRegistry);
+            meters.add(created.timer);
+        }
+        return created;
+    }
+
+    private static void recordDuration(Series current, Object[] arguments) {
+        if (arguments == null || current.durationArgument >= arguments.length
+                || !(arguments[current.durationArgument] instanceof Number number)) {
+            return;
+        }
+        long millis = number.longValue();
+        if (millis < 0) {
+            return;
+        }
+        current.durationCount.increment();
+        current.durationSum.add(millis);
+        current.durationMax.accumulate(millis);
+        current.timer.record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Índice del argumento que corresponde a {@code {} ms} (o {@code {}ms}) en la plantilla, o -1 si no hay.
+     */
+    static int durationArgumentOf(String template) {
+        int argument = 0;
+        int placeholder = template.indexOf("{}");
+        while (placeholder >= 0) {
+            int unit = placeholder + 2;
+            if (unit < template.length() && template.charAt(unit) == ' ') {
+                unit++;
+            }
+            if (template.startsWith("ms", unit)
+                    && (unit + 2 == template.length() || !Character.isLetter(template.charAt(unit + 2)))) {
+                return argument;
+            }
+            argument++;
+            placeholder = template.indexOf("{}", placeholder + 2);
+        }
+        return -1;
+    }
+
+    // ========== Publicación ==========
+
+    /**
+     * Envía a New Relic un evento por serie con actividad desde la publicación anterior. Una serie que no se
+     * pudo enviar conserva lo acumulado para la próxima publicación; el resto se sigue enviando.
+     */
+    void publish() {
+        Insights target = insights != null ? insights : NewRelic.getAgent().getInsights();
+        for (Series current : series.values()) {
+            long total = current.count.sum();
+            long count = total - current.published;
+            if (count == 0) {
+                continue;
+            }
+
+            Map<String, Object> attributes = new HashMap<>();
+            attributes.put("logger.name", current.logger);
+            attributes.put("log.level", current.level.toString());
+            attributes.put("template", current.template);
+            attributes.put("count", count);
+            long durationTotal = current.durationCount.sum();
+            long durationSumTotal = current.durationSum.sum();
+            long durations = durationTotal - current.publishedDurations;
+            long durationMax = 0;
+            if (durations > 0) {
+                durationMax = current.durationMax.getThenReset();
+                attributes.put("duration.count", durations);
+                attributes.put("duration.sum", durationSumTotal - current.publishedDurationSum);
+                attributes.put("duration.max", durationMax);
+            }
+            try {
+                target.recordCustomEvent(EVENT_TYPE, attributes);
+            } catch (Exception e) {
+                // El máximo se vuelve a acumular; los conteos no se marcan como publicados
+                current.durationMax.accumulate(durationMax);
+                addError("Failed to publish log metrics to New Relic: " + e.getMessage(), e);
+                continue;
+            }
+            current.published = total;
+            current.publishedDurations = durationTotal;
+            current.publishedDurationSum = durationSumTotal;
+        }
+    }
+
+    /**
+     * Destino de los eventos {@code LogMetric}; por defecto el del agente de New Relic.
+     */
+    void setInsights(Insights insights) {
+        this.insights = insights;
+    }
+
+    long getCount(String logger, Level level, String template) {
+        Series current = series.get(new SeriesKey(logger, level, template));
+        return current != null ? current.count.sum() : 0;
+    }
+
+    int getSeriesCount() {
+        return seriesCount.get();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        if (publisher != null) {
+            publisher.shutdownNow();
+        }
+        // Lo acumulado desde la última publicación no se pierde al detener el contexto
+        publish();
+        meters.forEach(Metrics.globalRegistry::remove);
+        meters.clear();
+        metrics.remove();
+        super.stop();
+    }
+
+    // ========== Configuración (logback-spring.xml) ==========
+
+    public void setPublishInterval(Duration publishInterval) {
+        this.publishInterval = publishInterval;
+    }
+
+    public void setMaxSeries(int maxSeries) {
+        this.maxSeries = Math.max(1, maxSeries);
+    }
+
+    private record SeriesKey(String logger, Level level, String template) {
+    }
+
+    /**
+     * Contadores acumulados de una serie. Los campos {@code published*} guardan lo ya enviado y solo los
+     * modifica el hilo de publicación.
+     */
+    private static final class Series {
+
+        final String logger;
+        final Level level;
+        final String template;
+        final int durationArgument;
+        final LongAdder count = new LongAdder();
+        final LongAdder durationCount = new LongAdder();
+        final LongAdder durationSum = new LongAdder();
+        final LongAccumulator durationMax = new LongAccumulator(Math::max, 0);
+        Timer timer;
+        long published;
+        long publishedDurations;
+        long publishedDurationSum;
+
+        Series(String logger, Level level, String template, int durationArgument) {
+            this.logger = logger;
+            this.level = level;
+            this.template = template;
+            this.durationArgument = durationArgument;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.diegoip.order.config;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Cola persistente en disco para las entradas de log que no se pudieron enviar a la Log API.
+ *
+ * Las entradas se escriben en segmentos de tamaño fijo mapeados en memoria ({@code 00000000000000000042.seg}),
+ * cada una como {@code [int largo][bytes]}; el largo se escribe al final, por lo que una entrada a medio
+ * escribir nunca se lee. Un archivo {@code checkpoint} (reemplazado de forma atómica) guarda la posición de
+ * la próxima entrada a reenviar, de modo que al reiniciar se retoma desde ahí sin perder ni repetir lotes
+ * ya confirmados. Los segmentos ya reenviados se borran.
+ *
+ * Todos los métodos son sincronizados: escriben tanto el hilo de envío como los hilos que registran cuando
+ * la cola en memoria se llena.
+ */
+final class LogSpool implements AutoCloseable {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final int HEADER = Integer.BYTES;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final List<Path> pendingDeletes = new ArrayList<>();
+
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private int writeOffset;
+
+    private long readSegment;
+    private MappedByteBuffer readBuffer;
+    private int readOffset;
+
+    private boolean dirty;
+
+    LogSpool(Path directory, int segmentSize, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = (int) Math.max(2, maxBytes / segmentSize);
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    // ========== Escritura ==========
+
+    /**
+     * Agrega las entradas al final del spool. Devuelve {@code false} (sin escribir ninguna) si no hay lugar.
+     */
+    synchronized boolean append(List<byte[]> entries) throws IOException {
+        if (!hasRoomFor(entries)) {
+            return false;
+        }
+        for (byte[] entry : entries) {
+            write(entry);
+        }
+        return true;
+    }
+
+    synchronized boolean append(byte[] entry) throws IOException {
+        if (!hasRoomFor(List.of(entry))) {
+            return false;
+        }
+        write(entry);
+        return true;
+    }
+
+    private boolean hasRoomFor(List<byte[]> entries) {
+        int segments = (int) (writeSegment - readSegment) + 1;
+        int offset = writeOffset;
+        for (byte[] entry : entries) {
+            int record = HEADER + entry.length;
+            if (record > segmentSize) {
+                return false;
+            }
+            if (offset + record > segmentSize) {
+                segments++;
+                offset = 0;
+            }
+            offset += record;
+        }
+        return segments <= maxSegments;
+    }
+
+    private void write(byte[] entry) throws IOException {
+        if (writeOffset + HEADER + entry.length > segmentSize) {
+            if (writeOffset + HEADER <= segmentSize) {
+                // Marca de fin explícita: después de un reinicio puede haber restos de una entrada sin confirmar
+                writeBuffer.putInt(writeOffset, 0);
+            }
+            writeBuffer.force();
+            writeSegment++;
+            writeBuffer = map(writeSegment);
+            writeOffset = 0;
+        }
+        writeBuffer.put(writeOffset + HEADER, entry);
+        // El largo va al final: confirma la entrada
+        writeBuffer.putInt(writeOffset, entry.length);
+        writeOffset += HEADER + entry.length;
+        dirty = true;
+    }
+
+    /**
+     * Baja a disco lo escrito desde la última llamada.
+     */
+    synchronized void force() {
+        if (dirty) {
+            writeBuffer.force();
+            dirty = false;
+        }
+    }
+
+    // ========== Lectura ==========
+
+    synchronized boolean isEmpty() {
+        return readSegment == writeSegment && readOffset == writeOffset;
+    }
+
+    /**
+     * Bytes pendientes de reenvío (aproximado: incluye el espacio sin usar al final de cada segmento).
+     */
+    synchronized long pendingBytes() {
+        return (writeSegment - readSegment) * segmentSize + writeOffset - readOffset;
+    }
+
+    /**
+     * Lee, sin consumirlas, las próximas entradas hasta {@code maxEntries} o {@code maxBytes}. Devuelve
+     * {@code null} si el spool está vacío. Las entradas se dan por enviadas recién con {@link #commit}.
+     */
+    synchronized Batch peek(int maxEntries, int maxBytes) throws IOException {
+        long segment = readSegment;
+        int offset = readOffset;
+        MappedByteBuffer buffer = readBuffer;
+        List<byte[]> entries = new ArrayList<>();
+        int bytes = 0;
+
+        while (entries.size() < maxEntries) {
+            if (segment == writeSegment && offset == writeOffset) {
+                break;
+            }
+            int length = offset + HEADER <= segmentSize ? buffer.getInt(offset) : 0;
+            if (length <= 0 || offset + HEADER + length > segmentSize) {
+                // Fin del segmento: seguir en el siguiente
+                segment++;
+                offset = 0;
+                buffer = segment == writeSegment ? writeBuffer : map(segment);
+                continue;
+            }
+            if (!entries.isEmpty() && bytes + length > maxBytes) {
+                break;
+            }
+            byte[] entry = new byte[length];
+            buffer.get(offset + HEADER, entry);
+            entries.add(entry);
+            bytes += length;
+            offset += HEADER + length;
+        }
+        return entries.isEmpty() ? null : new Batch(entries, segment, offset, buffer);
+    }
+
+    /**
+     * Marca como enviadas las entradas de {@code batch}, persiste el checkpoint y borra los segmentos terminados.
+     */
+    synchronized void commit(Batch batch) throws IOException {
+        long previous = readSegment;
+        readSegment = batch.segment;
+        readOffset = batch.offset;
+        readBuffer = batch.buffer;
+        writeCheckpoint();
+
+        for (long segment = previous; segment < readSegment; segment++) {
+            pendingDeletes.add(segmentPath(segment));
+        }
+        pendingDeletes.removeIf(this::delete);
+    }
+
+    @Override
+    public synchronized void close() {
+        force();
+    }
+
+    // ========== Archivos ==========
+
+    private void recover() throws IOException {
+        List<Long> segments = listSegments();
+        long checkpointSegment = segments.isEmpty() ? 0 : segments.get(0);
+        int checkpointOffset = 0;
+
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        if (Files.exists(checkpoint)) {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(checkpoint));
+            if (data.remaining() == Long.BYTES + Integer.BYTES) {
+                checkpointSegment = data.getLong();
+                checkpointOffset = data.getInt();
+            }
+        }
+
+        // Segmentos anteriores al checkpoint ya fueron enviados
+        for (long segment : segments) {
+            if (segment < checkpointSegment) {
+                delete(segmentPath(segment));
+            }
+        }
+
+        readSegment = checkpointSegment;
+        readOffset = checkpointOffset;
+        writeSegment = segments.isEmpty() ? checkpointSegment : Math.max(checkpointSegment, segments.get(segments.size() - 1));
+
+        writeBuffer = map(writeSegment);
+        readBuffer = readSegment == writeSegment ? writeBuffer : map(readSegment);
+
+        // Buscar el final de lo escrito en el último segmento
+        int offset = readSegment == writeSegment ? readOffset : 0;
+        while (offset + HEADER <= segmentSize) {
+            int length = writeBuffer.getInt(offset);
+            if (length <= 0 || offset + HEADER + length > segmentSize) {
+                break;
+            }
+            offset += HEADER + length;
+        }
+        writeOffset = offset;
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private MappedByteBuffer map(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private void writeCheckpoint() throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(Long.BYTES + Integer.BYTES).putLong(readSegment).putInt(readOffset);
+        Path temp = directory.resolve(CHECKPOINT + ".tmp");
+        Files.write(temp, data.array());
+        Files.move(temp, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%020d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    private boolean delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+            return true;
+        } catch (IOException e) {
+            // En Windows un archivo mapeado no se puede borrar hasta que se libere el mapeo: se reintenta
+            return false;
+        }
+    }
+
+    /**
+     * Entradas leídas por {@link #peek} y la posición que queda como checkpoint al confirmarlas.
+     */
+    static final class Batch {
+
+        private final List<byte[]> entries;
+        private final long segment;
+        private final int offset;
+        private final MappedByteBuffer buffer;
+
+        private Batch(List<byte[]> entries, long segment, int offset, MappedByteBuffer buffer) {
+            this.entries = entries;
+            this.segment = segment;
+            this.offset = offset;
+            this.buffer = buffer;
+        }
+
+        List<byte[]> entries() {
+            return entries;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.diegoip.order.config;
+
+import java.time.Duration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.diegoip.order.metrics.LoggingPipelineEndpoint;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Exposición de las métricas del pipeline de logging. Las métricas las registran los propios appenders
+ * (ver {@link LoggingPipelineMetrics}); acá solo se publica el endpoint que las resume.
+ */
+@Configuration
+public class LoggingObservabilityConfig {
+
+    // Ventana de las tasas por segundo del endpoint; Spring llama a close() al cerrar el contexto
+    private static final Duration RATE_WINDOW = Duration.ofSeconds(10);
+
+    @Bean
+    public LoggingPipelineEndpoint loggingPipelineEndpoint(MeterRegistry meterRegistry) {
+        return new LoggingPipelineEndpoint(meterRegistry, RATE_WINDOW);
+    }
+}
@@ -0,0 +1,106 @@
+package com.diegoip.order.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Métricas del pipeline de logging (appenders, ofuscación y codificación).
+ *
+ * Los appenders los crea Logback antes que el contexto de Spring, por lo que registran sus métricas en
+ * {@link Metrics#globalRegistry}, que Spring Boot conecta con su {@code MeterRegistry}. Cada appender
+ * obtiene su instancia con {@link #forAppender} al iniciar y la libera con {@link #remove} al detenerse;
+ * todas las series llevan el tag {@code appender}.
+ */
+public final class LoggingPipelineMetrics {
+
+    public static final String EVENTS = "logging.pipeline.events";
+    public static final String DROPPED = "logging.pipeline.dropped";
+    public static final String QUEUE_SIZE = "logging.pipeline.queue.size";
+    public static final String QUEUE_CAPACITY = "logging.pipeline.queue.capacity";
+    public static final String MASKING = "logging.pipeline.masking";
+    public static final String ENCODING = "logging.pipeline.encoding";
+
+    private static final Timer MASKING_TIMER = Timer.builder(MASKING)
+            .description("Tiempo de ofuscar el mensaje de un evento")
+            .publishPercentiles(0.5, 0.99)
+            .register(Metrics.globalRegistry);
+
+    private final String appender;
+    private final LongAdder events = new LongAdder();
+    private final List<Meter> meters = new CopyOnWriteArrayList<>();
+
+    private LoggingPipelineMetrics(String appender) {
+        this.appender = appender != null ? appender : "unnamed";
+    }
+
+    /**
+     * Registra el contador de eventos recibidos por el appender.
+     */
+    static LoggingPipelineMetrics forAppender(String appender) {
+        LoggingPipelineMetrics metrics = new LoggingPipelineMetrics(appender);
+        metrics.meters.add(FunctionCounter.builder(EVENTS, metrics.events, LongAdder::sum)
+                .description("Eventos recibidos por el appender")
+                .tag("appender", metrics.appender)
+                .register(Metrics.globalRegistry));
+        return metrics;
+    }
+
+    static void recordMasking(long nanos) {
+        MASKING_TIMER.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Timer del tiempo de codificar un evento con {@code encoder}.
+     */
+    static Timer encodingTimer(String encoder) {
+        return Timer.builder(ENCODING)
+                .description("Tiempo de codificar un evento")
+                .tag("encoder", encoder)
+                .publishPercentiles(0.5, 0.99)
+                .register(Metrics.globalRegistry);
+    }
+
+    void event() {
+        events.increment();
+    }
+
+    void dropCounter(String reason, LongAdder dropped) {
+        meters.add(FunctionCounter.builder(DROPPED, dropped, LongAdder::sum)
+                .description("Eventos descartados por el appender")
+                .tag("appender", appender)
+                .tag("reason", reason)
+                .register(Metrics.globalRegistry));
+    }
+
+    <T> void queue(T queue, ToDoubleFunction<T> size, int capacity) {
+        meters.add(Gauge.builder(QUEUE_SIZE, queue, size)
+                .description("Eventos en cola dentro del appender")
+                .tag("appender", appender)
+                .register(Metrics.globalRegistry));
+        meters.add(Gauge.builder(QUEUE_CAPACITY, () -> capacity)
+                .tag("appender", appender)
+                .register(Metrics.globalRegistry));
+    }
+
+    /**
+     * Agrega una métrica propia del appender para que se quite junto con las demás.
+     */
+    <M extends Meter> M add(M meter) {
+        meters.add(meter);
+        return meter;
+    }
+
+    void remove() {
+        meters.forEach(Metrics.globalRegistry::remove);
+        meters.clear();
+    }
+}
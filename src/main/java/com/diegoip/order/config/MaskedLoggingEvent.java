@@ -0,0 +1,183 @@
+package com.diegoip.order.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.LoggerContextVO;
+import org.slf4j.Marker;
+import org.slf4j.event.KeyValuePair;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evento de logging cuyo mensaje ya fue ofuscado.
+ *
+ * El mensaje se arma y se ofusca una sola vez al crear el evento, ofuscando cada argumento según su tipo
+ * (ver {@link SensitiveArguments}), y todos los appenders que lo reciben reutilizan ese resultado. El resto
+ * de los datos se delega al evento original. Los argumentos no se exponen para que ningún componente pueda volver a formatear el mensaje con los valores originales.
+ *
+ * También se capturan el trace.id y el span.id de New Relic y el id del hilo que registró el evento: los
+ * appenders asíncronos lo procesan en otro hilo, donde ya no están disponibles.
+ */
+public final class MaskedLoggingEvent implements ILoggingEvent {
+
+    private final ILoggingEvent delegate;
+    private final String maskedMessage;
+    private final NewRelicLogEnrichment.Trace trace;
+    private final long threadId;
+
+    private MaskedLoggingEvent(ILoggingEvent delegate) {
+        this.delegate = delegate;
+        long start = System.nanoTime();
+        this.maskedMessage = SensitiveArguments.maskedMessage(delegate);
+        LoggingPipelineMetrics.recordMasking(System.nanoTime() - start);
+        this.trace = NewRelicLogEnrichment.currentTrace();
+        this.threadId = Thread.currentThread().threadId();
+    }
+
+    /**
+     * Devuelve el evento ofuscado, reutilizándolo si ya lo estaba.
+     */
+    public static MaskedLoggingEvent of(ILoggingEvent event) {
+        if (event instanceof MaskedLoggingEvent masked) {
+            return masked;
+        }
+        return new MaskedLoggingEvent(event);
+    }
+
+    /**
+     * Mensaje ofuscado del evento. Solo ofusca si el evento no pasó antes por {@link MaskingDispatchAppender}.
+     */
+    public static String maskedMessageOf(ILoggingEvent event) {
+        if (event instanceof MaskedLoggingEvent masked) {
+            return masked.maskedMessage;
+        }
+        return SensitiveArguments.maskedMessage(event);
+    }
+
+    /**
+     * trace.id y span.id del hilo que registró el evento. Si el evento no pasó por
+     * {@link MaskingDispatchAppender} se leen del hilo actual.
+     */
+    static NewRelicLogEnrichment.Trace traceOf(ILoggingEvent event) {
+        if (event instanceof MaskedLoggingEvent masked) {
+            return masked.trace;
+        }
+        return NewRelicLogEnrichment.currentTrace();
+    }
+
+    /**
+     * Id del hilo que registró el evento, con el mismo criterio que {@link #traceOf}.
+     */
+    static long threadIdOf(ILoggingEvent event) {
+        if (event instanceof MaskedLoggingEvent masked) {
+            return masked.threadId;
+        }
+        return Thread.currentThread().threadId();
+    }
+
+    @Override
+    public String getMessage() {
+        return maskedMessage;
+    }
+
+    @Override
+    public Object[] getArgumentArray() {
+        return null;
+    }
+
+    @Override
+    public String getFormattedMessage() {
+        return maskedMessage;
+    }
+
+    @Override
+    public String getThreadName() {
+        return delegate.getThreadName();
+    }
+
+    @Override
+    public Level getLevel() {
+        return delegate.getLevel();
+    }
+
+    @Override
+    public String getLoggerName() {
+        return delegate.getLoggerName();
+    }
+
+    @Override
+    public LoggerContextVO getLoggerContextVO() {
+        return delegate.getLoggerContextVO();
+    }
+
+    @Override
+    public IThrowableProxy getThrowableProxy() {
+        return delegate.getThrowableProxy();
+    }
+
+    @Override
+    public StackTraceElement[] getCallerData() {
+        return delegate.getCallerData();
+    }
+
+    @Override
+    public boolean hasCallerData() {
+        return delegate.hasCallerData();
+    }
+
+    @Override
+    public List<Marker> getMarkerList() {
+        return delegate.getMarkerList();
+    }
+
+    @Override
+    public Map<String, String> getMDCPropertyMap() {
+        return delegate.getMDCPropertyMap();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public Map<String, String> getMdc() {
+        return delegate.getMdc();
+    }
+
+    @Override
+    public long getTimeStamp() {
+        return delegate.getTimeStamp();
+    }
+
+    @Override
+    public int getNanoseconds() {
+        return delegate.getNanoseconds();
+    }
+
+    @Override
+    public Instant getInstant() {
+        return delegate.getInstant();
+    }
+
+    @Override
+    public long getSequenceNumber() {
+        return delegate.getSequenceNumber();
+    }
+
+    @Override
+    public List<KeyValuePair> getKeyValuePairs() {
+        return delegate.getKeyValuePairs();
+    }
+
+    @Override
+    public void prepareForDeferredProcessing() {
+        // El mensaje ya está resuelto; evitar que el evento original arme también la versión sin ofuscar
+        delegate.getThreadName();
+        delegate.getMDCPropertyMap();
+    }
+
+    @Override
+    public String toString() {
+        return "[" + getLevel() + "] " + maskedMessage;
+    }
+}
@@ -0,0 +1,81 @@
+package com.diegoip.order.config;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+import java.util.Iterator;
+
+/**
+ * Appender que ofusca cada evento una sola vez y lo reparte a los appenders configurados dentro de él.
+ * Los appenders hijos reciben un {@link MaskedLoggingEvent} y omiten su propia ofuscación, por lo que
+ * el costo de ofuscar no crece al agregar nuevos destinos.
+ */
+public class MaskingDispatchAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private LoggingPipelineMetrics metrics;
+
+    @Override
+    public void start() {
+        if (!iteratorForAppenders().hasNext()) {
+            addWarn("No attached appenders found for [" + name + "].");
+        }
+        metrics = LoggingPipelineMetrics.forAppender(name);
+        super.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        metrics.event();
+        appenders.appendLoopOnAppenders(MaskedLoggingEvent.of(event));
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        appenders.detachAndStopAllAppenders();
+        if (metrics != null) {
+            metrics.remove();
+        }
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> newAppender) {
+        addInfo("Attaching appender named [" + newAppender.getName() + "] to " + getClass().getSimpleName() + ".");
+        appenders.addAppender(newAppender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
@@ -2,13 +2,11 @@ package com.diegoip.order.config;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.AppenderBase;
+import com.diegoip.order.util.LogMaskingEngine;
 import com.newrelic.api.agent.NewRelic;
-import com.newrelic.api.agent.TraceMetadata;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Appender que envía logs ofuscados directamente a New Relic usando la API de Logs in Context.
@@ -16,16 +14,29 @@ import java.util.regex.Pattern;
  */
 public class MaskingNewRelicAsyncAppender extends AppenderBase<ILoggingEvent> {
 
-    private static final Pattern DNI_PATTERN = Pattern.compile("\\b\\d{8}\\b");
-    private static final Pattern EMAIL_PATTERN = Pattern.compile("\\b[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Z|a-z]{2,}\\b");
-    private static final Pattern PHONE_PATTERN = Pattern.compile("\\b\\d{9,10}\\b");
-    private static final Pattern CARD_PATTERN = Pattern.compile("\\b\\d{16}\\b");
+    private final NewRelicLogEnrichment enrichment = NewRelicLogEnrichment.shared();
+    private LoggingPipelineMetrics metrics;
+
+    @Override
+    public void start() {
+        metrics = LoggingPipelineMetrics.forAppender(name);
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        if (metrics != null) {
+            metrics.remove();
+        }
+    }
 
     @Override
     protected void append(ILoggingEvent event) {
+        metrics.event();
         try {
             // Ofuscar el mensaje
-            String maskedMessage = maskMessage(event.getFormattedMessage());
+            String maskedMessage = MaskedLoggingEvent.maskedMessageOf(event);
 
             // Crear atributos para el log
             Map<String, Object> logAttributes = new HashMap<>();
@@ -37,35 +48,26 @@ public class MaskingNewRelicAsyncAppender extends AppenderBase<ILoggingEvent> {
             logAttributes.put("logger.name", event.getLoggerName());
             logAttributes.put("logger.fqcn", "ch.qos.logback.classic.Logger");
             logAttributes.put("thread.name", event.getThreadName());
-            logAttributes.put("thread.id", Thread.currentThread().getId());
+            logAttributes.put("thread.id", MaskedLoggingEvent.threadIdOf(event));
             logAttributes.put("timestamp", event.getTimeStamp());
 
-            // Obtener información de tracing de New Relic
-            TraceMetadata traceMetadata = NewRelic.getAgent().getTraceMetadata();
-            String traceId = traceMetadata.getTraceId();
-            String spanId = traceMetadata.getSpanId();
-
-            if (traceId != null && !traceId.isEmpty()) {
-                logAttributes.put("trace.id", traceId);
+            // Trace context del evento (una sola llamada al agente) y datos de la entidad cacheados
+            NewRelicLogEnrichment.Trace trace = MaskedLoggingEvent.traceOf(event);
+            if (trace.traceId() != null) {
+                logAttributes.put("trace.id", trace.traceId());
             }
-            if (spanId != null && !spanId.isEmpty()) {
-                logAttributes.put("span.id", spanId);
+            if (trace.spanId() != null) {
+                logAttributes.put("span.id", trace.spanId());
             }
 
             // Información de la entidad
-            Map<String, String> linkingMetadata = NewRelic.getAgent().getLinkingMetadata();
-            if (linkingMetadata != null) {
-                if (linkingMetadata.containsKey("entity.guid")) {
-                    logAttributes.put("entity.guid", linkingMetadata.get("entity.guid"));
-                    logAttributes.put("entity.guids", linkingMetadata.get("entity.guid"));
-                }
-                if (linkingMetadata.containsKey("entity.name")) {
-                    logAttributes.put("entity.name", linkingMetadata.get("entity.name"));
-                }
-                if (linkingMetadata.containsKey("hostname")) {
-                    logAttributes.put("hostname", linkingMetadata.get("hostname"));
-                }
+            NewRelicLogEnrichment.Entity entity = enrichment.entity();
+            if (entity.guid() != null) {
+                logAttributes.put("entity.guid", entity.guid());
+                logAttributes.put("entity.guids", entity.guid());
             }
+            logAttributes.put("entity.name", entity.name());
+            logAttributes.put("hostname", entity.hostname());
 
             // Campos adicionales de New Relic
             logAttributes.put("newrelic.source", "logs.APM");
@@ -90,72 +92,7 @@ public class MaskingNewRelicAsyncAppender extends AppenderBase<ILoggingEvent> {
     }
 
     private String maskMessage(String message) {
-        if (message == null) {
-            return message;
-        }
-
-        String masked = message;
-        masked = maskPattern(masked, CARD_PATTERN, this::maskCard);
-        masked = maskPattern(masked, PHONE_PATTERN, this::maskPhone);
-        masked = maskPattern(masked, DNI_PATTERN, this::maskDni);
-        masked = maskPattern(masked, EMAIL_PATTERN, this::maskEmail);
-
-        return masked;
-    }
-
-    private String maskPattern(String message, Pattern pattern, MaskFunction maskFunction) {
-        StringBuilder sb = new StringBuilder();
-        Matcher matcher = pattern.matcher(message);
-        int lastEnd = 0;
-
-        while (matcher.find()) {
-            sb.append(message, lastEnd, matcher.start());
-            sb.append(maskFunction.mask(matcher.group()));
-            lastEnd = matcher.end();
-        }
-        sb.append(message.substring(lastEnd));
-
-        return sb.toString();
-    }
-
-    private String maskDni(String dni) {
-        if (dni == null || dni.length() != 8) {
-            return "***";
-        }
-        return dni.substring(0, 2) + "***" + dni.substring(6);
-    }
-
-    private String maskEmail(String email) {
-        if (email == null || !email.contains("@")) {
-            return "***";
-        }
-        String[] parts = email.split("@");
-        String localPart = parts[0];
-        String domain = parts[1];
-
-        if (localPart.length() <= 2) {
-            return "***@" + domain;
-        }
-        return localPart.charAt(0) + "***@" + domain;
-    }
-
-    private String maskPhone(String phone) {
-        if (phone == null || phone.length() < 4) {
-            return "***";
-        }
-        return "***" + phone.substring(phone.length() - 3);
-    }
-
-    private String maskCard(String card) {
-        if (card == null || card.length() != 16) {
-            return "***";
-        }
-        return "***" + card.substring(12);
-    }
-
-    @FunctionalInterface
-    private interface MaskFunction {
-        String mask(String value);
+        return LogMaskingEngine.mask(message);
     }
 }
 
@@ -1,158 +1,93 @@
 package com.diegoip.order.config;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
-import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
 import ch.qos.logback.core.encoder.EncoderBase;
-import com.newrelic.logging.logback.NewRelicEncoder;
+import com.diegoip.order.util.LogMaskingEngine;
+import io.micrometer.core.instrument.Timer;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Encoder que envuelve NewRelicEncoder y ofusca los mensajes antes de codificarlos
+ * Encoder que escribe cada evento como una línea JSON con los atributos de New Relic
+ * (message, timestamp, thread.name, log.level, logger.name, entity.*, error.*), ofuscando los datos sensibles.
+ *
+ * El JSON se codifica directamente a UTF-8 con {@link JsonLogWriter}: el mensaje ya viene ofuscado por
+ * {@link MaskingDispatchAppender}, mientras que los valores del MDC y los datos de las excepciones se
+ * ofuscan en la misma pasada en que se escriben.
  */
 public class MaskingNewRelicEncoder extends EncoderBase<ILoggingEvent> {
 
-    private static final Pattern DNI_PATTERN = Pattern.compile("\\b\\d{8}\\b");
-    private static final Pattern EMAIL_PATTERN = Pattern.compile("\\b[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Z|a-z]{2,}\\b");
-    private static final Pattern PHONE_PATTERN = Pattern.compile("\\b\\d{9,10}\\b");
-    private static final Pattern CARD_PATTERN = Pattern.compile("\\b\\d{16}\\b");
+    private static final Timer ENCODING_TIMER = LoggingPipelineMetrics.encodingTimer("MaskingNewRelicEncoder");
 
-    private NewRelicEncoder wrappedEncoder;
-
-    @Override
-    public void start() {
-        wrappedEncoder = new NewRelicEncoder();
-        wrappedEncoder.setContext(context);
-        wrappedEncoder.start();
-        super.start();
-    }
-
-    @Override
-    public void stop() {
-        if (wrappedEncoder != null) {
-            wrappedEncoder.stop();
-        }
-        super.stop();
-    }
+    private final NewRelicLogEnrichment enrichment = NewRelicLogEnrichment.shared();
 
     @Override
     public byte[] headerBytes() {
-        return wrappedEncoder != null ? wrappedEncoder.headerBytes() : null;
+        return null;
     }
 
     @Override
     public byte[] encode(ILoggingEvent event) {
-        if (wrappedEncoder == null) {
-            return new byte[0];
-        }
-
-        // Crear un evento con el mensaje ofuscado
-        ILoggingEvent maskedEvent = createMaskedEvent(event);
-        return wrappedEncoder.encode(maskedEvent);
-    }
-
-    @Override
-    public byte[] footerBytes() {
-        return wrappedEncoder != null ? wrappedEncoder.footerBytes() : null;
-    }
-
-    private ILoggingEvent createMaskedEvent(ILoggingEvent event) {
-        String originalMessage = event.getFormattedMessage();
-        String maskedMessage = maskMessage(originalMessage);
-
-        if (originalMessage.equals(maskedMessage)) {
-            return event;
-        }
-
-        // Crear un nuevo LoggingEvent con el mensaje ofuscado
-        LoggingEvent maskedEvent = new LoggingEvent();
-        maskedEvent.setLoggerName(event.getLoggerName());
-        maskedEvent.setLevel(event.getLevel());
-        maskedEvent.setMessage(maskedMessage);
-        maskedEvent.setTimeStamp(event.getTimeStamp());
-        maskedEvent.setThreadName(event.getThreadName());
-        maskedEvent.setMDCPropertyMap(event.getMDCPropertyMap());
-        maskedEvent.setLoggerContextRemoteView(event.getLoggerContextVO());
-
-        return maskedEvent;
-    }
-
-    private String maskMessage(String message) {
-        if (message == null) {
-            return message;
+        long start = System.nanoTime();
+        try {
+            return writeEvent(event);
+        } finally {
+            ENCODING_TIMER.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
-
-        String masked = message;
-
-        // Ofuscar tarjetas primero (16 dígitos) para evitar conflictos con otros patrones
-        masked = maskPattern(masked, CARD_PATTERN, this::maskCard);
-
-        // Ofuscar teléfonos (9-10 dígitos)
-        masked = maskPattern(masked, PHONE_PATTERN, this::maskPhone);
-
-        // Ofuscar DNI (8 dígitos)
-        masked = maskPattern(masked, DNI_PATTERN, this::maskDni);
-
-        // Ofuscar emails
-        masked = maskPattern(masked, EMAIL_PATTERN, this::maskEmail);
-
-        return masked;
     }
 
-    private String maskPattern(String message, Pattern pattern, MaskFunction maskFunction) {
-        StringBuilder sb = new StringBuilder();
-        Matcher matcher = pattern.matcher(message);
-        int lastEnd = 0;
-
-        while (matcher.find()) {
-            sb.append(message, lastEnd, matcher.start());
-            sb.append(maskFunction.mask(matcher.group()));
-            lastEnd = matcher.end();
+    private byte[] writeEvent(ILoggingEvent event) {
+        JsonLogWriter json = JsonLogWriter.local();
+        json.beginObject();
+        json.field("message", MaskedLoggingEvent.maskedMessageOf(event));
+        json.field("timestamp", event.getTimeStamp());
+        json.field("thread.name", event.getThreadName());
+        json.field("log.level", event.getLevel().toString());
+        json.field("logger.name", event.getLoggerName());
+
+        // Solo si el appender asíncrono ya la calculó (includeCallerData); calcularla acá sería costoso
+        if (event.hasCallerData()) {
+            StackTraceElement[] callerData = event.getCallerData();
+            if (callerData.length > 0) {
+                json.field("class.name", callerData[0].getClassName());
+                json.field("method.name", callerData[0].getMethodName());
+                json.field("line.number", callerData[0].getLineNumber());
+            }
         }
-        sb.append(message.substring(lastEnd));
-
-        return sb.toString();
-    }
 
-    private String maskDni(String dni) {
-        if (dni == null || dni.length() != 8) {
-            return "***";
-        }
-        return dni.substring(0, 2) + "***" + dni.substring(6);
-    }
+        NewRelicLogEnrichment.Entity entity = enrichment.entity();
+        json.field("entity.guid", entity.guid());
+        json.field("entity.name", entity.name());
+        json.field("hostname", entity.hostname());
 
-    private String maskEmail(String email) {
-        if (email == null || !email.contains("@")) {
-            return "***";
+        Map<String, String> mdc = event.getMDCPropertyMap();
+        if (mdc != null) {
+            for (Map.Entry<String, String> entry : mdc.entrySet()) {
+                json.maskedField("context.", entry.getKey(), entry.getValue());
+            }
         }
-        String[] parts = email.split("@");
-        String localPart = parts[0];
-        String domain = parts[1];
 
-        if (localPart.length() <= 2) {
-            return "***@" + domain;
+        IThrowableProxy throwable = event.getThrowableProxy();
+        if (throwable != null) {
+            json.field("error.class", throwable.getClassName());
+            json.maskedField("error.message", throwable.getMessage());
+            json.maskedField("error.stack", ThrowableProxyUtil.asString(throwable));
         }
-        return localPart.charAt(0) + "***@" + domain;
-    }
 
-    private String maskPhone(String phone) {
-        if (phone == null || phone.length() < 4) {
-            return "***";
-        }
-        return "***" + phone.substring(phone.length() - 3);
+        json.endObject();
+        json.rawAscii("\n");
+        return json.toByteArray();
     }
 
-    private String maskCard(String card) {
-        if (card == null || card.length() != 16) {
-            return "***";
-        }
-        return "***" + card.substring(12);
+    @Override
+    public byte[] footerBytes() {
+        return null;
     }
 
-    @FunctionalInterface
-    private interface MaskFunction {
-        String mask(String value);
+    private String maskMessage(String message) {
+        return LogMaskingEngine.mask(message);
     }
 }
-
@@ -1,19 +1,34 @@
 package com.diegoip.order.config;
 
+import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.AppenderBase;
-import com.newrelic.api.agent.NewRelic;
-
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
+import ch.qos.logback.core.util.Duration;
+import ch.qos.logback.core.util.FileSize;
+import com.diegoip.order.util.LogMaskingEngine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Appender que envía logs ofuscados directamente a la Log API de New Relic.
@@ -23,352 +38,608 @@ import java.util.regex.Pattern;
  * - New Relic Logs UI
  * - Correlacionados con transacciones en APM
  * - Distributed Tracing
+ *
+ * Los eventos se acumulan en lotes que se envían cuando alcanzan {@code batchSize} eventos,
+ * {@code maxBatchBytes} bytes o cuando pasa {@code flushInterval} desde el primer evento del lote.
+ * Cada lote viaja comprimido con gzip en una sola petición, reutilizando las conexiones de un
+ * único {@link HttpClient}. Las entradas se codifican a UTF-8 con {@link JsonLogWriter} en el hilo que
+ * registra y se encolan como bytes, que el hilo de envío copia tal cual al stream gzip.
+ *
+ * La cola entre el appender y el hilo de envío está acotada a {@code queueSize} eventos. Cuando se
+ * llena se aplica {@code overflowPolicy} y cada descarte se cuenta en la métrica
+ * {@code logging.newrelic.logapi.dropped}; el tamaño de la cola se publica en
+ * {@code logging.newrelic.logapi.queue.size}.
+ *
+ * Con {@code spoolDirectory} configurado, los lotes que fallan por un error transitorio (red, timeout, 408,
+ * 429 o 5xx) se guardan en un {@link LogSpool} en disco, acotado a {@code maxSpoolSize}. Mientras el spool
+ * tenga datos el hilo de envío pasa los lotes siguientes de la cola detrás de ellos, en el mismo orden, y los
+ * reenvía cuando el endpoint vuelve a responder, reintentando cada
+ * {@code spoolRetryInterval} (duplicando la espera en cada fallo, hasta un minuto).
  */
 public class MaskingNewRelicLogApiAppender extends AppenderBase<ILoggingEvent> {
 
     private static final String LOG_API_URL = "https://log-api.newrelic.com/log/v1";
 
-    private static final Pattern DNI_PATTERN = Pattern.compile("\\b\\d{8}\\b");
-    private static final Pattern EMAIL_PATTERN = Pattern.compile("\\b[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Z|a-z]{2,}\\b");
-    private static final Pattern PHONE_PATTERN = Pattern.compile("\\b\\d{9,10}\\b");
-    private static final Pattern CARD_PATTERN = Pattern.compile("\\b\\d{16}\\b");
+    // Marca que despierta al hilo de envío para que publique el lote actual sin esperar el intervalo
+    private static final byte[] FLUSH = new byte[0];
+
+    private static final byte[] PAYLOAD_END = {']', '}', ']'};
 
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private static final long MAX_REPLAY_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private String endpoint = LOG_API_URL;
     private String licenseKey;
+    private int batchSize = 500;
+    private int maxBatchBytes = 1024 * 1024;
+    private Duration flushInterval = Duration.buildByMilliseconds(1000);
+    private Duration requestTimeout = Duration.buildBySeconds(10);
+    private int queueSize = 8192;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_BELOW_WARN;
+    private Duration blockTimeout = Duration.buildByMilliseconds(100);
+    private String spoolDirectory;
+    private FileSize maxSpoolSize = FileSize.valueOf("256MB");
+    private FileSize spoolSegmentSize = FileSize.valueOf("8MB");
+    private Duration spoolRetryInterval = Duration.buildBySeconds(1);
+
+    private BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>(queueSize);
+    private final List<Meter> meters = new ArrayList<>();
+    private final LongAdder droppedOldest = new LongAdder();
+    private final LongAdder droppedBelowWarn = new LongAdder();
+    private final LongAdder droppedTimeout = new LongAdder();
+    private final LongAdder droppedSendFailure = new LongAdder();
+    private final LongAdder droppedSpoolFull = new LongAdder();
+    private final LongAdder spooled = new LongAdder();
+    private final ByteArrayOutputStream payloadBuffer = new ByteArrayOutputStream(64 * 1024);
+
+    private final NewRelicLogEnrichment enrichment = NewRelicLogEnrichment.shared();
+
+    private URI endpointUri;
+    private HttpClient httpClient;
+    private Thread sender;
+    private volatile boolean running;
+
+    private LogSpool spool;
+    private LoggingPipelineMetrics metrics;
+    private DistributionSummary batchEvents;
+    private DistributionSummary batchBytes;
+    private final Map<Integer, Timer> sendTimers = new ConcurrentHashMap<>();
+    private long nextReplayNanos;
+    private long replayBackoffMillis;
 
     @Override
     public void start() {
-        // Obtener license key desde system property o variable de entorno
-        licenseKey = System.getProperty("newrelic.config.license_key");
+        // Obtener license key desde la configuración, system property o variable de entorno
+        if (licenseKey == null || licenseKey.isEmpty()) {
+            licenseKey = System.getProperty("newrelic.config.license_key");
+        }
         if (licenseKey == null || licenseKey.isEmpty()) {
             licenseKey = System.getenv("NEW_RELIC_LICENSE_KEY");
         }
 
         if (licenseKey == null || licenseKey.isEmpty()) {
             addWarn("New Relic License Key not found. Logs will not be sent to New Relic Log API.");
-        } else {
-            addInfo("MaskingNewRelicLogApiAppender initialized successfully.");
+            super.start();
+            return;
         }
 
+        try {
+            endpointUri = URI.create(endpoint);
+        } catch (IllegalArgumentException e) {
+            addError("Invalid New Relic Log API endpoint: " + endpoint, e);
+            return;
+        }
+
+        queue = new LinkedBlockingQueue<>(queueSize);
+        openSpool();
+        registerMeters();
+
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(java.time.Duration.ofSeconds(5))
+                .build();
+
+        running = true;
+        sender = new Thread(this::sendLoop, "newrelic-log-api-sender");
+        sender.setDaemon(true);
+        sender.start();
+
+        addInfo("MaskingNewRelicLogApiAppender initialized successfully. Endpoint: " + endpoint
+                + ", queueSize: " + queueSize + ", overflowPolicy: " + overflowPolicy
+                + ", spool: " + (spool != null ? spoolDirectory : "disabled"));
         super.start();
     }
 
     @Override
     protected void append(ILoggingEvent event) {
-        if (licenseKey == null || licenseKey.isEmpty()) {
+        if (!running) {
             return;
         }
+        metrics.event();
+
+        // El trace context se capturó en el hilo que registró el evento (este corre en el de NEW_RELIC_ASYNC)
+        NewRelicLogEnrichment.Trace trace = MaskedLoggingEvent.traceOf(event);
+        byte[] entry = buildLogEntry(event, trace, enrichment.entity());
+        enqueue(entry, event.getLevel().isGreaterOrEqual(Level.WARN));
+    }
+
+    // ========== Cola acotada ==========
+
+    private void enqueue(byte[] entry, boolean warnOrAbove) {
+        // Solo el hilo de envío escribe en el spool: si lo hiciera el productor, el evento nuevo quedaría
+        // delante de los que todavía esperan en la cola
+        if (queue.offer(entry)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case DROP_OLDEST -> replaceOldest(entry);
+            case DROP_BELOW_WARN -> {
+                if (warnOrAbove) {
+                    replaceOldest(entry);
+                } else {
+                    droppedBelowWarn.increment();
+                }
+            }
+            case BLOCK_WITH_TIMEOUT -> {
+                try {
+                    if (!queue.offer(entry, blockTimeout.getMilliseconds(), TimeUnit.MILLISECONDS)) {
+                        droppedTimeout.increment();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    droppedTimeout.increment();
+                }
+            }
+        }
+    }
+
+    private void replaceOldest(byte[] entry) {
+        // Otros productores pueden ocupar el lugar liberado: se reintenta unas pocas veces
+        for (int attempt = 0; attempt < 3; attempt++) {
+            if (queue.poll() != null) {
+                droppedOldest.increment();
+            }
+            if (queue.offer(entry)) {
+                return;
+            }
+        }
+        droppedOldest.increment();
+    }
+
+    private void registerMeters() {
+        String appender = name != null ? name : getClass().getSimpleName();
+        metrics = LoggingPipelineMetrics.forAppender(appender);
+        batchEvents = metrics.add(DistributionSummary.builder("logging.newrelic.logapi.batch.events")
+                .description("Eventos por lote enviado a la Log API")
+                .tag("appender", appender)
+                .register(Metrics.globalRegistry));
+        batchBytes = metrics.add(DistributionSummary.builder("logging.newrelic.logapi.batch.bytes")
+                .description("Bytes comprimidos por lote enviado a la Log API")
+                .baseUnit("bytes")
+                .tag("appender", appender)
+                .register(Metrics.globalRegistry));
+        registerDropCounter(appender, "oldest", droppedOldest);
+        registerDropCounter(appender, "below_warn", droppedBelowWarn);
+        registerDropCounter(appender, "timeout", droppedTimeout);
+        registerDropCounter(appender, "send_failure", droppedSendFailure);
+        registerDropCounter(appender, "spool_full", droppedSpoolFull);
+
+        if (spool != null) {
+            LogSpool monitoredSpool = spool;
+            meters.add(FunctionCounter.builder("logging.newrelic.logapi.spooled", spooled, LongAdder::sum)
+                    .description("Eventos guardados en el spool en disco para reenviarlos más tarde")
+                    .tag("appender", appender)
+                    .register(Metrics.globalRegistry));
+            meters.add(Gauge.builder("logging.newrelic.logapi.spool.bytes", monitoredSpool, LogSpool::pendingBytes)
+                    .description("Bytes en el spool pendientes de reenvío")
+                    .tag("appender", appender)
+                    .register(Metrics.globalRegistry));
+        }
 
-        // Capturar datos del evento en el thread actual
-        final String formattedMessage = event.getFormattedMessage();
-        final String loggerName = event.getLoggerName();
-        final String levelStr = event.getLevel().toString();
-        final String threadName = event.getThreadName();
-        final long timestamp = event.getTimeStamp();
-        final long threadId = Thread.currentThread().getId();
-        final Map<String, String> mdcMap = event.getMDCPropertyMap();
-
-        // Capturar trace context en el thread actual (importante!)
-        final String traceId = getTraceId();
-        final String spanId = getSpanId();
-        final String entityGuid = getEntityGuid();
-        final String entityName = getEntityName();
-        final String hostname = getHostname();
-
-        // Ejecutar envío en background para no bloquear
-        executor.submit(() -> {
+        BlockingQueue<byte[]> monitored = queue;
+        meters.add(Gauge.builder("logging.newrelic.logapi.queue.size", monitored, BlockingQueue::size)
+                .description("Eventos en cola pendientes de envío a la Log API")
+                .tag("appender", appender)
+                .register(Metrics.globalRegistry));
+        meters.add(Gauge.builder("logging.newrelic.logapi.queue.capacity", this, self -> self.queueSize)
+                .tag("appender", appender)
+                .register(Metrics.globalRegistry));
+    }
+
+    private void registerDropCounter(String appender, String reason, LongAdder dropped) {
+        meters.add(FunctionCounter.builder("logging.newrelic.logapi.dropped", dropped, LongAdder::sum)
+                .description("Eventos descartados antes de llegar a la Log API")
+                .tag("appender", appender)
+                .tag("reason", reason)
+                .register(Metrics.globalRegistry));
+    }
+
+    long getDroppedCount() {
+        return droppedOldest.sum() + droppedBelowWarn.sum() + droppedTimeout.sum() + droppedSendFailure.sum()
+                + droppedSpoolFull.sum();
+    }
+
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    // ========== Envío por lotes ==========
+
+    private void sendLoop() {
+        List<byte[]> batch = new ArrayList<>(batchSize);
+        byte[] carry = null;
+
+        while (running || carry != null || !queue.isEmpty()) {
+            replaySpool();
             try {
-                sendLogToNewRelic(
-                    formattedMessage, loggerName, levelStr, threadName,
-                    timestamp, threadId, mdcMap,
-                    traceId, spanId, entityGuid, entityName, hostname
-                );
-            } catch (Exception e) {
-                addError("Error sending log to New Relic Log API", e);
+                byte[] first = carry != null ? carry : queue.poll(flushInterval.getMilliseconds(), TimeUnit.MILLISECONDS);
+                carry = null;
+                if (first == null || first == FLUSH) {
+                    continue;
+                }
+
+                batch.add(first);
+                int bytes = first.length;
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval.getMilliseconds());
+
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    byte[] next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null || next == FLUSH) {
+                        break;
+                    }
+                    if (bytes + next.length > maxBatchBytes) {
+                        // No entra en este lote: abre el siguiente
+                        carry = next;
+                        break;
+                    }
+                    batch.add(next);
+                    bytes += next.length;
+                }
+            } catch (InterruptedException e) {
+                // Al detenerse se envía lo que ya se tenía acumulado
+                running = false;
             }
-        });
+
+            if (!batch.isEmpty()) {
+                sendBatch(batch);
+                batch.clear();
+            }
+            if (spool != null) {
+                spool.force();
+            }
+        }
+    }
+
+    private void sendBatch(List<byte[]> batch) {
+        if (spool != null && !spool.isEmpty()) {
+            // Hay lotes anteriores sin reenviar: este va detrás para respetar el orden
+            spill(batch);
+            return;
+        }
+
+        int responseCode = post(batch);
+        if (isSuccess(responseCode)) {
+            return;
+        }
+        if (spool != null && isRetryable(responseCode)) {
+            spill(batch);
+            backOffReplay();
+        } else {
+            droppedSendFailure.add(batch.size());
+        }
     }
 
-    private void sendLogToNewRelic(
-            String formattedMessage, String loggerName, String levelStr,
-            String threadName, long timestamp, long threadId,
-            Map<String, String> mdcMap,
-            String traceId, String spanId, String entityGuid,
-            String entityName, String hostname) {
+    /**
+     * Envía el lote y devuelve el código HTTP, o -1 si no hubo respuesta.
+     */
+    private int post(List<byte[]> batch) {
+        long start = System.nanoTime();
+        int responseCode = send(batch);
+        sendTimer(responseCode).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return responseCode;
+    }
 
+    private int send(List<byte[]> batch) {
         try {
-            // Ofuscar el mensaje
-            String maskedMessage = maskMessage(formattedMessage);
+            byte[] payload = buildPayload(batch);
+            batchEvents.record(batch.size());
+            batchBytes.record(payload.length);
+            HttpRequest request = HttpRequest.newBuilder(endpointUri)
+                    .timeout(java.time.Duration.ofMillis(requestTimeout.getMilliseconds()))
+                    .header("Content-Type", "application/json")
+                    .header("Content-Encoding", "gzip")
+                    .header("Api-Key", licenseKey)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+                    .build();
+
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            int responseCode = response.statusCode();
+            if (!isSuccess(responseCode)) {
+                addWarn("New Relic Log API returned: " + responseCode + " for a batch of " + batch.size() + " logs");
+            }
+            return responseCode;
+        } catch (IOException e) {
+            addWarn("Error sending " + batch.size() + " logs to New Relic Log API: " + e.getMessage());
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+            return -1;
+        }
+    }
+
+    /**
+     * Latencia de envío por código HTTP; {@code IO_ERROR} cuando no hubo respuesta.
+     */
+    private Timer sendTimer(int responseCode) {
+        return sendTimers.computeIfAbsent(responseCode, code -> metrics.add(
+                Timer.builder("logging.newrelic.logapi.send")
+                        .description("Latencia de cada envío de un lote a la Log API")
+                        .tag("appender", name != null ? name : getClass().getSimpleName())
+                        .tag("status", code < 0 ? "IO_ERROR" : String.valueOf(code))
+                        .register(Metrics.globalRegistry)));
+    }
+
+    private static boolean isSuccess(int responseCode) {
+        return responseCode == 202 || responseCode == 200;
+    }
 
-            // Construir JSON payload
-            String jsonPayload = buildJsonPayload(
-                maskedMessage, loggerName, levelStr, threadName,
-                timestamp, threadId, mdcMap,
-                traceId, spanId, entityGuid, entityName, hostname
-            );
+    private static boolean isRetryable(int responseCode) {
+        return responseCode < 0 || responseCode == 408 || responseCode == 429 || responseCode >= 500;
+    }
 
-            // Enviar a Log API
-            sendHttpRequest(jsonPayload);
+    // ========== Spool en disco ==========
 
-        } catch (Exception e) {
-            addError("Error in sendLogToNewRelic", e);
+    private void openSpool() {
+        if (spoolDirectory == null || spoolDirectory.isEmpty()) {
+            return;
+        }
+        try {
+            spool = new LogSpool(Path.of(spoolDirectory), (int) Math.min(spoolSegmentSize.getSize(), Integer.MAX_VALUE),
+                    maxSpoolSize.getSize());
+        } catch (IOException | RuntimeException e) {
+            addError("Could not open log spool at " + spoolDirectory + "; failed batches will be dropped.", e);
         }
     }
 
-    private String buildJsonPayload(
-            String maskedMessage, String loggerName, String levelStr,
-            String threadName, long timestamp, long threadId,
-            Map<String, String> mdcMap,
-            String traceId, String spanId, String entityGuid,
-            String entityName, String hostname) {
+    private void spill(List<byte[]> batch) {
+        try {
+            if (spool.append(batch)) {
+                spooled.add(batch.size());
+                return;
+            }
+        } catch (IOException e) {
+            addWarn("Error writing to log spool: " + e.getMessage());
+        }
+        droppedSpoolFull.add(batch.size());
+    }
 
-        StringBuilder json = new StringBuilder();
-        json.append("[{");
+    /**
+     * Reenvía en orden lo guardado en el spool hasta vaciarlo o hasta el primer fallo transitorio.
+     */
+    private void replaySpool() {
+        if (spool == null || System.nanoTime() - nextReplayNanos < 0) {
+            return;
+        }
+        try {
+            LogSpool.Batch pending;
+            while ((pending = spool.peek(batchSize, maxBatchBytes)) != null) {
+                int responseCode = post(pending.entries());
+                if (!isSuccess(responseCode) && isRetryable(responseCode)) {
+                    backOffReplay();
+                    return;
+                }
+                if (!isSuccess(responseCode)) {
+                    // Rechazo definitivo (por ejemplo, 400 o 403): reintentarlo no sirve
+                    droppedSendFailure.add(pending.entries().size());
+                }
+                spool.commit(pending);
+                replayBackoffMillis = 0;
+            }
+        } catch (IOException e) {
+            addWarn("Error reading log spool: " + e.getMessage());
+            backOffReplay();
+        }
+    }
 
-        // Common attributes
-        json.append("\"common\":{");
-        json.append("\"attributes\":{");
-        json.append("\"logtype\":\"application\",");
-        json.append("\"service\":\"").append(escapeJson(entityName)).append("\",");
-        json.append("\"hostname\":\"").append(escapeJson(hostname)).append("\",");
-        json.append("\"instrumentation\":\"logback-masking-log-api\"");
-        json.append("}},");
+    private void backOffReplay() {
+        replayBackoffMillis = replayBackoffMillis == 0
+                ? spoolRetryInterval.getMilliseconds()
+                : Math.min(replayBackoffMillis * 2, MAX_REPLAY_BACKOFF_MILLIS);
+        nextReplayNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(replayBackoffMillis);
+    }
 
-        // Logs array
-        json.append("\"logs\":[{");
+    private byte[] buildPayload(List<byte[]> batch) throws IOException {
+        payloadBuffer.reset();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(payloadBuffer, 8192)) {
+            NewRelicLogEnrichment.Entity entity = enrichment.entity();
+            JsonLogWriter json = JsonLogWriter.local();
+            json.rawAscii("[{");
+
+            // Common attributes
+            json.name("common").beginObject();
+            json.name("attributes").beginObject();
+            json.field("logtype", "application");
+            json.field("service", entity.name());
+            json.field("hostname", entity.hostname());
+            json.field("instrumentation", "logback-masking-log-api");
+            json.endObject().endObject();
+
+            // Logs array
+            json.rawAscii(",\"logs\":[");
+            json.writeTo(gzip);
+
+            for (int i = 0; i < batch.size(); i++) {
+                if (i > 0) {
+                    gzip.write(',');
+                }
+                gzip.write(batch.get(i));
+            }
+            gzip.write(PAYLOAD_END);
+        }
+        return payloadBuffer.toByteArray();
+    }
+
+    private byte[] buildLogEntry(ILoggingEvent event, NewRelicLogEnrichment.Trace trace,
+                                 NewRelicLogEnrichment.Entity entity) {
+        String level = event.getLevel().toString();
+        JsonLogWriter json = JsonLogWriter.local();
+        json.beginObject();
 
         // Timestamp
-        json.append("\"timestamp\":").append(timestamp).append(",");
+        json.field("timestamp", event.getTimeStamp());
 
         // Message (ofuscado)
-        json.append("\"message\":\"").append(escapeJson(maskedMessage)).append("\",");
+        json.field("message", MaskedLoggingEvent.maskedMessageOf(event));
 
         // Attributes
-        json.append("\"attributes\":{");
+        json.name("attributes").beginObject();
 
         // Log level
-        json.append("\"level\":\"").append(levelStr).append("\",");
-        json.append("\"log.level\":\"").append(levelStr).append("\",");
+        json.field("level", level);
+        json.field("log.level", level);
 
         // Logger info
-        json.append("\"logger.name\":\"").append(escapeJson(loggerName)).append("\",");
-        json.append("\"logger.fqcn\":\"ch.qos.logback.classic.Logger\",");
+        json.field("logger.name", event.getLoggerName());
+        json.field("logger.fqcn", "ch.qos.logback.classic.Logger");
 
         // Thread info
-        json.append("\"thread.name\":\"").append(escapeJson(threadName)).append("\",");
-        json.append("\"thread.id\":").append(threadId).append(",");
+        json.field("thread.name", event.getThreadName());
+        json.field("thread.id", MaskedLoggingEvent.threadIdOf(event));
 
         // New Relic source
-        json.append("\"newrelic.source\":\"logs.APM\"");
+        json.field("newrelic.source", "logs.APM");
 
         // Trace context para correlación con transacciones
-        if (traceId != null && !traceId.isEmpty()) {
-            json.append(",\"trace.id\":\"").append(escapeJson(traceId)).append("\"");
-        }
-        if (spanId != null && !spanId.isEmpty()) {
-            json.append(",\"span.id\":\"").append(escapeJson(spanId)).append("\"");
-        }
+        json.field("trace.id", trace.traceId());
+        json.field("span.id", trace.spanId());
 
         // Entity info para linking con APM
-        if (entityGuid != null && !entityGuid.isEmpty()) {
-            json.append(",\"entity.guid\":\"").append(escapeJson(entityGuid)).append("\"");
-            json.append(",\"entity.guids\":\"").append(escapeJson(entityGuid)).append("\"");
-        }
-        if (entityName != null && !entityName.isEmpty()) {
-            json.append(",\"entity.name\":\"").append(escapeJson(entityName)).append("\"");
-        }
-        if (hostname != null && !hostname.isEmpty()) {
-            json.append(",\"hostname\":\"").append(escapeJson(hostname)).append("\"");
-        }
-
-        // MDC attributes
-        if (mdcMap != null && !mdcMap.isEmpty()) {
+        json.field("entity.guid", entity.guid());
+        json.field("entity.guids", entity.guid());
+        json.field("entity.name", entity.name());
+        json.field("hostname", entity.hostname());
+
+        // MDC attributes (los valores se ofuscan mientras se escriben)
+        Map<String, String> mdcMap = event.getMDCPropertyMap();
+        if (mdcMap != null) {
             for (Map.Entry<String, String> entry : mdcMap.entrySet()) {
                 String key = entry.getKey();
-                String value = entry.getValue();
                 // Evitar duplicar campos que ya agregamos
                 if (!key.equals("trace.id") && !key.equals("span.id") &&
                     !key.equals("entity.guid") && !key.equals("entity.name")) {
-                    json.append(",\"").append(escapeJson(key)).append("\":\"")
-                        .append(escapeJson(value)).append("\"");
+                    json.maskedField(key, entry.getValue());
                 }
             }
         }
 
-        json.append("}}]}]");
-
-        return json.toString();
+        json.endObject().endObject();
+        return json.toByteArray();
     }
 
-    private void sendHttpRequest(String jsonPayload) throws Exception {
-        URI uri = URI.create(LOG_API_URL);
-        HttpURLConnection conn = (HttpURLConnection) uri.toURL().openConnection();
-
-        try {
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setRequestProperty("Api-Key", licenseKey);
-            conn.setDoOutput(true);
-            conn.setConnectTimeout(5000);
-            conn.setReadTimeout(5000);
-
-            try (OutputStream os = conn.getOutputStream()) {
-                byte[] input = jsonPayload.getBytes(StandardCharsets.UTF_8);
-                os.write(input, 0, input.length);
-            }
+    // ========== Métodos de ofuscación ==========
 
-            int responseCode = conn.getResponseCode();
-            if (responseCode != 202 && responseCode != 200) {
-                addWarn("New Relic Log API returned: " + responseCode);
-            }
-        } finally {
-            conn.disconnect();
-        }
+    private String maskMessage(String message) {
+        return LogMaskingEngine.mask(message);
     }
 
-    // ========== Métodos para obtener contexto de New Relic ==========
+    // ========== Configuración (logback-spring.xml) ==========
 
-    private String getTraceId() {
-        try {
-            return NewRelic.getAgent().getTraceMetadata().getTraceId();
-        } catch (Exception e) {
-            return null;
-        }
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
     }
 
-    private String getSpanId() {
-        try {
-            return NewRelic.getAgent().getTraceMetadata().getSpanId();
-        } catch (Exception e) {
-            return null;
-        }
+    public void setLicenseKey(String licenseKey) {
+        this.licenseKey = licenseKey;
     }
 
-    private String getEntityGuid() {
-        try {
-            Map<String, String> metadata = NewRelic.getAgent().getLinkingMetadata();
-            return metadata != null ? metadata.get("entity.guid") : null;
-        } catch (Exception e) {
-            return null;
-        }
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
     }
 
-    private String getEntityName() {
-        try {
-            Map<String, String> metadata = NewRelic.getAgent().getLinkingMetadata();
-            String name = metadata != null ? metadata.get("entity.name") : null;
-            return name != null ? name : System.getProperty("newrelic.config.app_name", "ms-order");
-        } catch (Exception e) {
-            return System.getProperty("newrelic.config.app_name", "ms-order");
-        }
+    public void setMaxBatchBytes(int maxBatchBytes) {
+        this.maxBatchBytes = Math.max(1024, maxBatchBytes);
     }
 
-    private String getHostname() {
-        try {
-            Map<String, String> metadata = NewRelic.getAgent().getLinkingMetadata();
-            String hostname = metadata != null ? metadata.get("hostname") : null;
-            if (hostname == null) {
-                hostname = java.net.InetAddress.getLocalHost().getHostName();
-            }
-            return hostname;
-        } catch (Exception e) {
-            return "unknown";
-        }
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
     }
 
-    // ========== Métodos de ofuscación ==========
-
-    private String maskMessage(String message) {
-        if (message == null) {
-            return message;
-        }
-
-        String masked = message;
-        masked = maskPattern(masked, CARD_PATTERN, this::maskCard);
-        masked = maskPattern(masked, PHONE_PATTERN, this::maskPhone);
-        masked = maskPattern(masked, DNI_PATTERN, this::maskDni);
-        masked = maskPattern(masked, EMAIL_PATTERN, this::maskEmail);
-
-        return masked;
+    public void setRequestTimeout(Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
     }
 
-    private String maskPattern(String message, Pattern pattern, MaskFunction maskFunction) {
-        StringBuilder sb = new StringBuilder();
-        Matcher matcher = pattern.matcher(message);
-        int lastEnd = 0;
-
-        while (matcher.find()) {
-            sb.append(message, lastEnd, matcher.start());
-            sb.append(maskFunction.mask(matcher.group()));
-            lastEnd = matcher.end();
-        }
-        sb.append(message.substring(lastEnd));
-
-        return sb.toString();
+    public void setQueueSize(int queueSize) {
+        this.queueSize = Math.max(1, queueSize);
     }
 
-    private String maskDni(String dni) {
-        if (dni == null || dni.length() != 8) {
-            return "***";
-        }
-        return dni.substring(0, 2) + "***" + dni.substring(6);
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
     }
 
-    private String maskEmail(String email) {
-        if (email == null || !email.contains("@")) {
-            return "***";
-        }
-        String[] parts = email.split("@");
-        String localPart = parts[0];
-        String domain = parts[1];
+    public void setBlockTimeout(Duration blockTimeout) {
+        this.blockTimeout = blockTimeout;
+    }
 
-        if (localPart.length() <= 2) {
-            return "***@" + domain;
-        }
-        return localPart.charAt(0) + "***@" + domain;
+    public void setSpoolDirectory(String spoolDirectory) {
+        this.spoolDirectory = spoolDirectory;
     }
 
-    private String maskPhone(String phone) {
-        if (phone == null || phone.length() < 4) {
-            return "***";
-        }
-        return "***" + phone.substring(phone.length() - 3);
+    public void setMaxSpoolSize(FileSize maxSpoolSize) {
+        this.maxSpoolSize = maxSpoolSize;
     }
 
-    private String maskCard(String card) {
-        if (card == null || card.length() != 16) {
-            return "***";
-        }
-        return "***" + card.substring(12);
+    public void setSpoolSegmentSize(FileSize spoolSegmentSize) {
+        this.spoolSegmentSize = spoolSegmentSize;
     }
 
-    private String escapeJson(String value) {
-        if (value == null) return "";
-        return value
-                .replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r")
-                .replace("\t", "\\t");
+    public void setSpoolRetryInterval(Duration spoolRetryInterval) {
+        this.spoolRetryInterval = spoolRetryInterval;
     }
 
     @Override
     public void stop() {
-        executor.shutdown();
-        try {
-            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
-                executor.shutdownNow();
+        if (!isStarted()) {
+            return;
+        }
+        running = false;
+        queue.offer(FLUSH);
+        if (sender != null) {
+            try {
+                // El hilo termina de enviar lo pendiente antes de salir
+                sender.join(flushInterval.getMilliseconds() + requestTimeout.getMilliseconds() + 1000);
+                if (sender.isAlive()) {
+                    addWarn("New Relic Log API sender did not finish in time; " + queue.size() + " logs were not sent.");
+                    sender.interrupt();
+                }
+            } catch (InterruptedException e) {
+                sender.interrupt();
+                Thread.currentThread().interrupt();
             }
-        } catch (InterruptedException e) {
-            executor.shutdownNow();
-            Thread.currentThread().interrupt();
+        }
+        if (httpClient != null) {
+            httpClient.close();
+        }
+        if (spool != null) {
+            spool.close();
+        }
+        meters.forEach(Metrics.globalRegistry::remove);
+        meters.clear();
+        if (metrics != null) {
+            metrics.remove();
+            sendTimers.clear();
         }
         super.stop();
     }
 
-    @FunctionalInterface
-    private interface MaskFunction {
-        String mask(String value);
+    /**
+     * Qué hacer cuando la cola hacia la Log API está llena. Ninguna política bloquea indefinidamente.
+     */
+    public enum OverflowPolicy {
+        /** Descarta el evento más antiguo de la cola para hacer lugar al nuevo. */
+        DROP_OLDEST,
+        /** Descarta los eventos nuevos de nivel menor a WARN; WARN y ERROR reemplazan al más antiguo. */
+        DROP_BELOW_WARN,
+        /** Espera hasta {@code blockTimeout} a que haya lugar y, si no lo hay, descarta el evento. */
+        BLOCK_WITH_TIMEOUT
     }
 }
-
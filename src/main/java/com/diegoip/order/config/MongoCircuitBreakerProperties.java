@@ -0,0 +1,33 @@
+package com.diegoip.order.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Circuit breaker de las llamadas a repositorios MongoDB ({@code app.mongodb.circuit-breaker.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.mongodb.circuit-breaker")
+public class MongoCircuitBreakerProperties {
+
+    /** Activa el circuit breaker; si es false las llamadas nunca se rechazan. */
+    private boolean enabled = true;
+
+    /** Ventana en la que se calcula la proporción de timeouts. */
+    private Duration window = Duration.ofSeconds(10);
+
+    /** Mínimo de llamadas en la ventana para poder abrir el circuito. */
+    private int minimumCalls = 20;
+
+    /** Proporción de llamadas con timeout que abre el circuito (0.5 = 50%). */
+    private double timeoutRateThreshold = 0.5;
+
+    /** Tiempo que el circuito permanece abierto antes de dejar pasar llamadas de prueba. */
+    private Duration openDuration = Duration.ofSeconds(10);
+
+    /** Llamadas de prueba que deben terminar sin timeout para volver a cerrar el circuito. */
+    private int halfOpenCalls = 5;
+}
@@ -0,0 +1,21 @@
+package com.diegoip.order.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Configuración de la instrumentación de comandos MongoDB ({@code app.mongodb.commands.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "app.mongodb.commands")
+public class MongoCommandMetricsProperties {
+
+    /** Duración a partir de la cual un comando se considera lento y se registra. */
+    private Duration slowThreshold = Duration.ofMillis(200);
+
+    /** Cantidad de comandos más lentos que se conservan para el endpoint de actuator. */
+    private int slowLogSize = 50;
+}
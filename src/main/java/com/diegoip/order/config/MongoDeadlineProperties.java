@@ -0,0 +1,30 @@
+package com.diegoip.order.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Tiempo máximo de cada operación de repositorio contra MongoDB ({@code app.mongodb.deadlines.*}).
+ * Los métodos se identifican como {@code "OrderRepository.findByDni"}; los que no se configuran usan
+ * {@code defaultTimeout}. Ver {@link RoutingMongoTemplate}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.mongodb.deadlines")
+public class MongoDeadlineProperties {
+
+    /** Tiempo máximo por defecto de una operación; 0 o null la deja sin límite. */
+    private Duration defaultTimeout = Duration.ofSeconds(2);
+
+    /** Tiempo máximo por método de repositorio. */
+    private Map<String, Duration> methods = new LinkedHashMap<>();
+
+    public Duration deadlineFor(String repositoryMethod) {
+        Duration deadline = methods.get(repositoryMethod);
+        return deadline != null ? deadline : defaultTimeout;
+    }
+}
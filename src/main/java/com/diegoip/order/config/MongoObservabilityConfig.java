@@ -0,0 +1,104 @@
+package com.diegoip.order.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.mongodb.autoconfigure.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import com.diegoip.order.metrics.MongoCircuitBreaker;
+import com.diegoip.order.metrics.MongoCommandMetricsListener;
+import com.diegoip.order.metrics.MongoConnectionPoolMetricsListener;
+import com.diegoip.order.metrics.RepositoryMethodInterceptor;
+import com.diegoip.order.metrics.SlowMongoCommandLog;
+import com.diegoip.order.metrics.SlowMongoCommandsEndpoint;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Instrumentación del cliente MongoDB: latencia por método de repositorio, registro de comandos lentos,
+ * métricas y ajustes del pool de conexiones.
+ */
+@Configuration
+@EnableConfigurationProperties({MongoCommandMetricsProperties.class, MongoPoolProperties.class})
+public class MongoObservabilityConfig {
+
+    /**
+     * Agrega a cada repositorio de Spring Data un interceptor que identifica el método invocado,
+     * para que los listeners del driver puedan etiquetar los comandos con él, y que aplica el
+     * circuit breaker de MongoDB si está activo.
+     */
+    @Bean
+    static BeanPostProcessor repositoryMethodContextPostProcessor(ObjectProvider<MongoCircuitBreaker> circuitBreaker) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    // El circuit breaker se resuelve al crear el repositorio, no al registrar este post-processor
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(
+                                    new RepositoryMethodInterceptor(repositoryInformation.getRepositoryInterface(),
+                                            circuitBreaker.getIfAvailable()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public SlowMongoCommandLog slowMongoCommandLog(MongoCommandMetricsProperties properties) {
+        return new SlowMongoCommandLog(properties.getSlowLogSize());
+    }
+
+    @Bean
+    public MongoCommandMetricsListener mongoCommandMetricsListener(MeterRegistry meterRegistry,
+                                                                   SlowMongoCommandLog slowMongoCommandLog,
+                                                                   MongoCommandMetricsProperties properties) {
+        return new MongoCommandMetricsListener(meterRegistry, slowMongoCommandLog, properties.getSlowThreshold());
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoCommandMetricsCustomizer(MongoCommandMetricsListener listener) {
+        return builder -> builder.addCommandListener(listener);
+    }
+
+    @Bean
+    public MongoConnectionPoolMetricsListener mongoConnectionPoolMetricsListener(MeterRegistry meterRegistry) {
+        return new MongoConnectionPoolMetricsListener(meterRegistry);
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoConnectionPoolCustomizer(MongoConnectionPoolMetricsListener listener,
+                                                                              MongoPoolProperties pool) {
+        return builder -> builder.applyToConnectionPoolSettings(settings -> {
+            settings.addConnectionPoolListener(listener);
+            if (pool.getMaxSize() != null) {
+                settings.maxSize(pool.getMaxSize());
+            }
+            if (pool.getMinSize() != null) {
+                settings.minSize(pool.getMinSize());
+            }
+            if (pool.getMaxIdleTime() != null) {
+                settings.maxConnectionIdleTime(pool.getMaxIdleTime().toMillis(), TimeUnit.MILLISECONDS);
+            }
+            if (pool.getMaxWaitTime() != null) {
+                settings.maxWaitTime(pool.getMaxWaitTime().toMillis(), TimeUnit.MILLISECONDS);
+            }
+            if (pool.getMaxLifeTime() != null) {
+                settings.maxConnectionLifeTime(pool.getMaxLifeTime().toMillis(), TimeUnit.MILLISECONDS);
+            }
+            if (pool.getMaxConnecting() != null) {
+                settings.maxConnecting(pool.getMaxConnecting());
+            }
+        });
+    }
+
+    @Bean
+    public SlowMongoCommandsEndpoint slowMongoCommandsEndpoint(SlowMongoCommandLog slowMongoCommandLog) {
+        return new SlowMongoCommandsEndpoint(slowMongoCommandLog);
+    }
+}
@@ -0,0 +1,34 @@
+package com.diegoip.order.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Ajustes del pool de conexiones de MongoDB ({@code app.mongodb.pool.*}).
+ * Los valores no informados conservan los del driver o los indicados en la URI.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.mongodb.pool")
+public class MongoPoolProperties {
+
+    /** Máximo de conexiones por servidor. */
+    private Integer maxSize;
+
+    /** Mínimo de conexiones que el pool mantiene abiertas por servidor. */
+    private Integer minSize;
+
+    /** Tiempo máximo que una conexión puede permanecer ociosa antes de cerrarse. */
+    private Duration maxIdleTime;
+
+    /** Tiempo máximo que un hilo espera por una conexión libre antes de fallar. */
+    private Duration maxWaitTime;
+
+    /** Tiempo de vida máximo de una conexión. */
+    private Duration maxLifeTime;
+
+    /** Máximo de conexiones que se pueden estar estableciendo en paralelo. */
+    private Integer maxConnecting;
+}
@@ -0,0 +1,35 @@
+package com.diegoip.order.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Read preference por método de servicio ({@code app.mongodb.read-preference.*}). Los métodos se
+ * identifican como {@code "OrderService.getAllOrders"}; los que no se configuran leen del primario.
+ * Ver {@link ServiceReadPreferencePostProcessor}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.mongodb.read-preference")
+public class MongoReadPreferenceProperties {
+
+    /** Atraso máximo de un secundario para poder leer de él. El driver no admite menos de 90 s. */
+    private Duration maxStaleness = Duration.ofSeconds(90);
+
+    /** Read preference por método de servicio. */
+    private Map<String, Routing> methods = new LinkedHashMap<>();
+
+    @Data
+    public static class Routing {
+
+        /** primary, primaryPreferred, secondary, secondaryPreferred o nearest. */
+        private String mode = "secondaryPreferred";
+
+        /** Atraso máximo propio del método; si no se informa se usa el general. */
+        private Duration maxStaleness;
+    }
+}
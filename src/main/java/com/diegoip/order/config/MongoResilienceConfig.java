@@ -0,0 +1,48 @@
+package com.diegoip.order.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import com.diegoip.order.metrics.MongoCircuitBreaker;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Plazos por método de repositorio ({@code maxTimeMS}), read preference por método de servicio y circuit
+ * breaker de MongoDB. El circuit breaker se aplica en el interceptor de repositorios que agrega
+ * {@link MongoObservabilityConfig}.
+ */
+@Configuration
+@EnableConfigurationProperties({MongoDeadlineProperties.class, MongoCircuitBreakerProperties.class})
+public class MongoResilienceConfig {
+
+    /**
+     * Reemplaza el MongoTemplate de Spring Boot, que usan los repositorios.
+     */
+    @Bean
+    public MongoTemplate mongoTemplate(MongoDatabaseFactory mongoDatabaseFactory, MongoConverter mongoConverter,
+                                       MongoDeadlineProperties deadlines) {
+        return new RoutingMongoTemplate(mongoDatabaseFactory, mongoConverter, deadlines);
+    }
+
+    /**
+     * Read preference de los métodos de servicio configurados en {@code app.mongodb.read-preference}.
+     * Las propiedades se leen del Environment: un post-processor se crea antes que los demás beans.
+     */
+    @Bean
+    static ServiceReadPreferencePostProcessor serviceReadPreferencePostProcessor(Environment environment) {
+        return new ServiceReadPreferencePostProcessor(environment);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.mongodb.circuit-breaker", name = "enabled", matchIfMissing = true)
+    public MongoCircuitBreaker mongoCircuitBreaker(MongoCircuitBreakerProperties properties, MeterRegistry meterRegistry) {
+        return new MongoCircuitBreaker(properties, meterRegistry);
+    }
+}
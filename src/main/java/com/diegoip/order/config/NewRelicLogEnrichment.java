@@ -0,0 +1,104 @@
+package com.diegoip.order.config;
+
+import com.newrelic.api.agent.NewRelic;
+import com.newrelic.api.agent.TraceMetadata;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Atributos de New Relic con los que se enriquecen los logs.
+ *
+ * Los datos propios del proceso (entity guid y nombre, hostname, servicio) se resuelven una vez y se
+ * refrescan cada {@link #REFRESH_INTERVAL_NANOS}, o cada {@link #RETRY_INTERVAL_NANOS} mientras el agente
+ * todavía no se conectó y no informa el entity guid. Solo el trace.id y el span.id se leen en cada evento,
+ * con una única llamada al agente.
+ */
+final class NewRelicLogEnrichment {
+
+    private static final long REFRESH_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final long RETRY_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private static final NewRelicLogEnrichment SHARED = new NewRelicLogEnrichment();
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final String localHostname = resolveLocalHostname();
+    private volatile Entity entity;
+    private volatile long nextRefresh;
+
+    private NewRelicLogEnrichment() {
+        refresh();
+    }
+
+    static NewRelicLogEnrichment shared() {
+        return SHARED;
+    }
+
+    /**
+     * Datos de la entidad. Si están vencidos, un solo hilo los refresca; el resto usa los anteriores.
+     */
+    Entity entity() {
+        if (System.nanoTime() - nextRefresh > 0 && refreshing.compareAndSet(false, true)) {
+            try {
+                refresh();
+            } finally {
+                refreshing.set(false);
+            }
+        }
+        return entity;
+    }
+
+    /**
+     * trace.id y span.id de la transacción en curso en el hilo actual.
+     */
+    static Trace currentTrace() {
+        try {
+            TraceMetadata metadata = NewRelic.getAgent().getTraceMetadata();
+            return new Trace(emptyToNull(metadata.getTraceId()), emptyToNull(metadata.getSpanId()));
+        } catch (Exception e) {
+            return Trace.NONE;
+        }
+    }
+
+    private void refresh() {
+        String appName = System.getProperty("newrelic.config.app_name", "ms-order");
+        Map<String, String> metadata = null;
+        try {
+            metadata = NewRelic.getAgent().getLinkingMetadata();
+        } catch (Exception e) {
+            // Sin agente: se usan los valores locales
+        }
+
+        String guid = metadata != null ? emptyToNull(metadata.get("entity.guid")) : null;
+        String name = metadata != null ? emptyToNull(metadata.get("entity.name")) : null;
+        String hostname = metadata != null ? emptyToNull(metadata.get("hostname")) : null;
+
+        entity = new Entity(guid, name != null ? name : appName, hostname != null ? hostname : localHostname);
+        nextRefresh = System.nanoTime() + (guid != null ? REFRESH_INTERVAL_NANOS : RETRY_INTERVAL_NANOS);
+    }
+
+    private static String resolveLocalHostname() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Atributos de la entidad de APM; {@code guid} es {@code null} hasta que el agente se conecta.
+     */
+    record Entity(String guid, String name, String hostname) {
+    }
+
+    record Trace(String traceId, String spanId) {
+
+        static final Trace NONE = new Trace(null, null);
+    }
+}
@@ -1,5 +1,8 @@
 package com.diegoip.order.config;
 
+import com.diegoip.order.util.LogMaskingEngine;
+import com.diegoip.order.util.Sensitive;
+import com.diegoip.order.util.SensitiveType;
 import com.newrelic.api.agent.NewRelic;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
@@ -8,25 +11,40 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
 
 import java.io.IOException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Filtro que ofusca datos sensibles en la URI de la transacción de New Relic.
- * Esto afecta cómo se muestra request.uri en las transacciones.
+ * Filtro que nombra la transacción de New Relic con la ruta de Spring MVC que atendió la petición
+ * (por ejemplo {@code /api/orders/dni/{dni} (GET)}), de modo que la URI con datos sensibles nunca llega
+ * al nombre de la transacción.
+ *
+ * La ruta se lee después de ejecutar la cadena, cuando el {@code HandlerMapping} ya la dejó en la petición.
+ * El nombre y las variables sensibles de cada ruta (parámetros {@code @PathVariable} anotados con
+ * {@link Sensitive}) se calculan una sola vez por handler; solo en las rutas con datos sensibles se arma
+ * además la URI ofuscada que se agrega como atributo {@code request.uri.masked}.
  */
 @Component
 @Order(1)
 public class NewRelicUriMaskingFilter implements Filter {
 
-    private static final Pattern DNI_PATTERN = Pattern.compile("/dni/([0-9]{8})(?:/|$|\\?)");
-    private static final Pattern EMAIL_PATTERN = Pattern.compile("/email/([^/]+@[^/]+)");
-    private static final Pattern PHONE_PATTERN = Pattern.compile("/phone/([0-9]{9,10})(?:/|$|\\?)");
-    private static final Pattern ID_NUMERIC_PATTERN = Pattern.compile("/id/([0-9]{8,})(?:/|$|\\?)");
+    private static final String CATEGORY = "Custom";
+    private static final int MAX_CACHED_ROUTES = 1024;
+
+    private final ParameterNameDiscoverer parameterNames = new DefaultParameterNameDiscoverer();
+    private final Map<RouteKey, Route> routes = new ConcurrentHashMap<>();
 
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
@@ -36,23 +54,13 @@ public class NewRelicUriMaskingFilter implements Filter {
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
-
-        if (request instanceof HttpServletRequest httpRequest) {
-            String originalUri = httpRequest.getRequestURI();
-            String maskedUri = maskUri(originalUri);
-
-            // Si la URI fue modificada, renombrar la transacción en New Relic
-            if (!originalUri.equals(maskedUri)) {
-                // Establecer el nombre de la transacción con la URI ofuscada
-                NewRelic.setTransactionName("Custom", maskedUri);
-
-                // También agregar como atributo personalizado
-                NewRelic.addCustomParameter("request.uri.masked", maskedUri);
-                NewRelic.addCustomParameter("request.uri.original.masked", true);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request instanceof HttpServletRequest httpRequest) {
+                nameTransaction(httpRequest);
             }
         }
-
-        chain.doFilter(request, response);
     }
 
     @Override
@@ -60,63 +68,131 @@ public class NewRelicUriMaskingFilter implements Filter {
         // No cleanup needed
     }
 
-    private String maskUri(String uri) {
-        if (uri == null) {
-            return uri;
+    private void nameTransaction(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null) {
+            nameUnmatched(request);
+            return;
         }
 
-        String masked = uri;
-
-        // Ofuscar DNI (8 dígitos después de /dni/)
-        Matcher dniMatcher = DNI_PATTERN.matcher(masked);
-        if (dniMatcher.find()) {
-            String dni = dniMatcher.group(1);
-            String maskedDni = dni.substring(0, 2) + "***" + dni.substring(6);
-            masked = masked.replace("/dni/" + dni, "/dni/" + maskedDni);
+        Route route = routeFor(request, pattern);
+        NewRelic.setTransactionName(CATEGORY, route.transactionName());
+        if (route.isSensitive()) {
+            NewRelic.addCustomParameter("request.uri.masked", route.maskedUri(uriVariables(request)));
+            NewRelic.addCustomParameter("request.uri.original.masked", true);
         }
+    }
 
-        // Ofuscar Email
-        Matcher emailMatcher = EMAIL_PATTERN.matcher(masked);
-        if (emailMatcher.find()) {
-            String email = emailMatcher.group(1);
-            String maskedEmail = maskEmail(email);
-            masked = masked.replace("/email/" + email, "/email/" + maskedEmail);
+    /**
+     * Peticiones sin ruta de Spring MVC (404, recursos estáticos): se ofusca la URI tal como llegó.
+     */
+    private void nameUnmatched(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        String maskedUri = LogMaskingEngine.mask(uri);
+        if (maskedUri != uri) {
+            NewRelic.setTransactionName(CATEGORY, maskedUri);
+            NewRelic.addCustomParameter("request.uri.masked", maskedUri);
+            NewRelic.addCustomParameter("request.uri.original.masked", true);
         }
+    }
+
+    Route routeFor(HttpServletRequest request, Object pattern) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        RouteKey key = new RouteKey(handler instanceof HandlerMethod handlerMethod ? handlerMethod.getMethod() : handler,
+                pattern, request.getMethod());
 
-        // Ofuscar Teléfono
-        Matcher phoneMatcher = PHONE_PATTERN.matcher(masked);
-        if (phoneMatcher.find()) {
-            String phone = phoneMatcher.group(1);
-            String maskedPhone = "***" + phone.substring(phone.length() - 3);
-            masked = masked.replace("/phone/" + phone, "/phone/" + maskedPhone);
+        Route route = routes.get(key);
+        if (route == null) {
+            route = createRoute(handler, pattern.toString(), request.getMethod());
+            if (routes.size() < MAX_CACHED_ROUTES) {
+                routes.putIfAbsent(key, route);
+            }
         }
+        return route;
+    }
 
-        // Ofuscar IDs numéricos largos (posibles DNIs o documentos)
-        Matcher idMatcher = ID_NUMERIC_PATTERN.matcher(masked);
-        if (idMatcher.find()) {
-            String id = idMatcher.group(1);
-            if (id.length() == 8) {
-                // Probablemente un DNI
-                String maskedId = id.substring(0, 2) + "***" + id.substring(6);
-                masked = masked.replace("/id/" + id, "/id/" + maskedId);
+    private Route createRoute(Object handler, String template, String httpMethod) {
+        Map<String, SensitiveType> sensitiveVariables = new HashMap<>();
+        if (handler instanceof HandlerMethod handlerMethod) {
+            for (MethodParameter parameter : handlerMethod.getMethodParameters()) {
+                PathVariable pathVariable = parameter.getParameterAnnotation(PathVariable.class);
+                Sensitive sensitive = parameter.getParameterAnnotation(Sensitive.class);
+                if (pathVariable != null && sensitive != null) {
+                    sensitiveVariables.put(variableName(parameter, pathVariable), sensitive.value());
+                }
             }
         }
+        return new Route(template + " (" + httpMethod + ")", template, Map.copyOf(sensitiveVariables));
+    }
 
-        return masked;
+    private String variableName(MethodParameter parameter, PathVariable pathVariable) {
+        if (!pathVariable.name().isEmpty()) {
+            return pathVariable.name();
+        }
+        parameter.initParameterNameDiscovery(parameterNames);
+        return parameter.getParameterName();
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, String> uriVariables(HttpServletRequest request) {
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        return variables instanceof Map<?, ?> map ? (Map<String, String>) map : Map.of();
     }
 
-    private String maskEmail(String email) {
-        if (email == null || !email.contains("@")) {
-            return "***";
+    private record RouteKey(Object handler, Object pattern, String httpMethod) {
+    }
+
+    /**
+     * Nombre de transacción de una ruta y sus variables con datos sensibles.
+     */
+    record Route(String transactionName, String template, Map<String, SensitiveType> sensitiveVariables) {
+
+        boolean isSensitive() {
+            return !sensitiveVariables.isEmpty();
         }
-        String[] parts = email.split("@");
-        String localPart = parts[0];
-        String domain = parts[1];
 
-        if (localPart.length() <= 2) {
-            return "***@" + domain;
+        /**
+         * Variables de la petición con las sensibles ofuscadas.
+         */
+        Map<String, String> maskedVariables(Map<String, String> variables) {
+            if (!isSensitive() || variables.isEmpty()) {
+                return variables;
+            }
+            Map<String, String> masked = new LinkedHashMap<>(variables);
+            sensitiveVariables.forEach((name, type) -> masked.computeIfPresent(name, (n, value) -> type.mask(value)));
+            return masked;
+        }
+
+        /**
+         * Expande la plantilla con los valores de la petición, ofuscando las variables sensibles.
+         */
+        String maskedUri(Map<String, String> variables) {
+            StringBuilder uri = new StringBuilder(template.length() + 16);
+            int last = 0;
+            int open;
+            while ((open = template.indexOf('{', last)) >= 0) {
+                int close = template.indexOf('}', open);
+                if (close < 0) {
+                    break;
+                }
+                uri.append(template, last, open);
+
+                // {nombre}, {nombre:regex} o {*nombre}
+                String name = template.substring(template.charAt(open + 1) == '*' ? open + 2 : open + 1, close);
+                int colon = name.indexOf(':');
+                if (colon >= 0) {
+                    name = name.substring(0, colon);
+                }
+                String value = variables.get(name);
+                SensitiveType type = sensitiveVariables.get(name);
+                if (value == null) {
+                    uri.append(template, open, close + 1);
+                } else {
+                    uri.append(type != null ? type.mask(value) : value);
+                }
+                last = close + 1;
+            }
+            return uri.append(template, last, template.length()).toString();
         }
-        return localPart.charAt(0) + "***@" + domain;
     }
 }
-
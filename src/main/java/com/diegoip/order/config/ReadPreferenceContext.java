@@ -0,0 +1,36 @@
+package com.diegoip.order.config;
+
+import com.mongodb.ReadPreference;
+
+/**
+ * Contexto por hilo con la read preference del método de servicio que se está ejecutando. Lo publica
+ * {@link ServiceReadPreferencePostProcessor} y lo aplica {@link RoutingMongoTemplate} a cada operación.
+ */
+final class ReadPreferenceContext {
+
+    private static final ThreadLocal<ReadPreference> CURRENT = new ThreadLocal<>();
+
+    private ReadPreferenceContext() {
+    }
+
+    /**
+     * Read preference del método en curso, o null si no tiene una configurada (se lee del primario).
+     */
+    static ReadPreference current() {
+        return CURRENT.get();
+    }
+
+    static ReadPreference enter(ReadPreference readPreference) {
+        ReadPreference previous = CURRENT.get();
+        CURRENT.set(readPreference);
+        return previous;
+    }
+
+    static void exit(ReadPreference previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
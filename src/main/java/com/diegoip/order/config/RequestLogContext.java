@@ -0,0 +1,70 @@
+package com.diegoip.order.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Contexto por hilo con los datos de la petición HTTP en curso que se informan en el evento de acceso de
+ * {@link AccessLogFilter}: lo que agregan los controllers y servicios con {@link #put} (cantidades,
+ * resultados) y el tiempo de los comandos MongoDB, que el driver síncrono notifica en el hilo que los emite.
+ *
+ * Fuera de una petición (tareas programadas, tests) las llamadas no hacen nada.
+ */
+public final class RequestLogContext {
+
+    private static final ThreadLocal<RequestLogContext> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Object> attributes = new LinkedHashMap<>(8);
+    private int mongoCommands;
+    private long mongoNanos;
+
+    private RequestLogContext() {
+    }
+
+    /**
+     * Agrega un dato al evento de acceso de la petición en curso. Un {@code SensitiveValue} se informa
+     * ofuscado, igual que como argumento de log.
+     */
+    public static void put(String key, Object value) {
+        RequestLogContext context = CURRENT.get();
+        if (context != null) {
+            context.attributes.put(key, value);
+        }
+    }
+
+    public static void recordMongoCommand(long elapsedNanos) {
+        RequestLogContext context = CURRENT.get();
+        if (context != null) {
+            context.mongoCommands++;
+            context.mongoNanos += elapsedNanos;
+        }
+    }
+
+    static RequestLogContext begin() {
+        RequestLogContext previous = CURRENT.get();
+        CURRENT.set(new RequestLogContext());
+        return previous;
+    }
+
+    static RequestLogContext end(RequestLogContext previous) {
+        RequestLogContext context = CURRENT.get();
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+        return context;
+    }
+
+    Map<String, Object> attributes() {
+        return attributes;
+    }
+
+    int mongoCommands() {
+        return mongoCommands;
+    }
+
+    long mongoNanos() {
+        return mongoNanos;
+    }
+}
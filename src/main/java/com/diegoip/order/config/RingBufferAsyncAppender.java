@@ -0,0 +1,396 @@
+package com.diegoip.order.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+import ch.qos.logback.core.util.Duration;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reemplazo de {@code ch.qos.logback.classic.AsyncAppender} basado en un ring buffer preasignado,
+ * sin locks entre los hilos que registran.
+ *
+ * Cada productor reserva una secuencia con un CAS, guarda el evento en su celda y la publica; un único
+ * hilo consumidor toma todas las celdas publicadas consecutivas (hasta {@code maxBatchSize}), las entrega
+ * a los appenders configurados y libera el lote completo con una sola escritura. Cómo espera el
+ * consumidor cuando no hay eventos lo define {@code waitStrategy}. Solo si el ring está lleno (y
+ * {@code neverBlock} es {@code false}) los productores esperan en un lock, hasta que el consumidor
+ * libere un lote.
+ *
+ * Se configura igual que {@code AsyncAppender}: {@code ringSize} (se redondea a potencia de 2),
+ * {@code discardingThreshold}, {@code neverBlock}, {@code includeCallerData} (desactivado por defecto,
+ * ya que obliga a recorrer el stack en cada llamada) y {@code maxFlushTime}.
+ */
+public class RingBufferAsyncAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    private static final int UNDEFINED = -1;
+    // Con un solo procesador la espera activa solo le quita tiempo al hilo que se está esperando
+    private static final int SPIN_TRIES = Runtime.getRuntime().availableProcessors() > 1 ? 100 : 0;
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+
+    private int ringSize = 1024;
+    private int maxBatchSize = 256;
+    private int discardingThreshold = UNDEFINED;
+    private boolean neverBlock;
+    private boolean includeCallerData;
+    private WaitStrategy waitStrategy = WaitStrategy.BLOCKING;
+    private Duration maxFlushTime = Duration.buildByMilliseconds(1000);
+
+    private ILoggingEvent[] slots;
+    private AtomicLongArray published;
+    private int mask;
+
+    // Última secuencia reservada por un productor y última secuencia procesada por el consumidor
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final AtomicLong consumed = new AtomicLong(-1);
+    private final LongAdder discarded = new LongAdder();
+
+    private final ReentrantLock fullLock = new ReentrantLock();
+    private final Condition notFull = fullLock.newCondition();
+    private volatile int waitingProducers;
+
+    private LoggingPipelineMetrics metrics;
+    private Thread worker;
+    private volatile boolean running;
+    // Lo activa el consumidor antes de suspenderse; el primer productor que lo apaga lo despierta
+    private final AtomicBoolean consumerWaiting = new AtomicBoolean();
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (!iteratorForAppenders().hasNext()) {
+            addWarn("No attached appenders found for [" + name + "].");
+        }
+
+        int capacity = ringSize <= 2 ? 2 : Integer.highestOneBit(ringSize - 1) << 1;
+        slots = new ILoggingEvent[capacity];
+        published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        mask = capacity - 1;
+        claimed.set(-1);
+        consumed.set(-1);
+        if (discardingThreshold == UNDEFINED) {
+            discardingThreshold = capacity / 5;
+        }
+        maxBatchSize = Math.min(maxBatchSize, capacity);
+
+        metrics = LoggingPipelineMetrics.forAppender(name);
+        metrics.dropCounter("ring_full", discarded);
+        metrics.queue(this, self -> self.slots.length - self.remainingCapacity(), capacity);
+
+        running = true;
+        worker = new Thread(this::consumeLoop, "logback-ring-" + name);
+        worker.setDaemon(true);
+        worker.start();
+
+        addInfo("Started RingBufferAsyncAppender [" + name + "] with ringSize " + capacity
+                + " and wait strategy " + waitStrategy + ".");
+        super.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        metrics.event();
+        if (discardingThreshold > 0 && remainingCapacity() < discardingThreshold
+                && event.getLevel().toInt() <= Level.INFO_INT) {
+            discarded.increment();
+            return;
+        }
+
+        event.prepareForDeferredProcessing();
+        if (includeCallerData) {
+            event.getCallerData();
+        }
+
+        long sequence = claim();
+        if (sequence < 0) {
+            discarded.increment();
+            return;
+        }
+        int index = (int) sequence & mask;
+        slots[index] = event;
+        published.set(index, sequence);
+
+        if (consumerWaiting.get() && consumerWaiting.compareAndSet(true, false)) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    /**
+     * Reserva la siguiente secuencia, o devuelve -1 si el ring está lleno y no se debe (o no se puede) esperar.
+     */
+    private long claim() {
+        int spins = 0;
+        while (true) {
+            long current = claimed.get();
+            long next = current + 1;
+            if (next - slots.length > consumed.get()) {
+                // La celda todavía no fue liberada por el consumidor
+                if (neverBlock || !running) {
+                    return -1;
+                }
+                if (spins++ < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else if (!awaitFreeSlot(next)) {
+                    return -1;
+                }
+                continue;
+            }
+            if (claimed.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Espera a que el consumidor libere la celda de {@code sequence}; devuelve {@code false} si el hilo
+     * fue interrumpido.
+     */
+    private boolean awaitFreeSlot(long sequence) {
+        fullLock.lock();
+        try {
+            waitingProducers++;
+            while (running && sequence - slots.length > consumed.get()) {
+                notFull.await(1, TimeUnit.MILLISECONDS);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waitingProducers--;
+            fullLock.unlock();
+        }
+    }
+
+    // ========== Consumidor ==========
+
+    private void consumeLoop() {
+        int idle = 0;
+        while (running) {
+            if (drainBatch() > 0) {
+                idle = 0;
+            } else {
+                idle = waitStrategy.idle(this, idle);
+            }
+        }
+        // Entregar lo publicado antes de detenerse
+        while (drainBatch() > 0) {
+            // continuar hasta vaciar el ring
+        }
+    }
+
+    private int drainBatch() {
+        long first = consumed.get() + 1;
+        long sequence = first;
+        long limit = first + maxBatchSize;
+        while (sequence < limit && published.get((int) sequence & mask) == sequence) {
+            sequence++;
+        }
+        if (sequence == first) {
+            return 0;
+        }
+
+        for (long s = first; s < sequence; s++) {
+            int index = (int) s & mask;
+            ILoggingEvent event = slots[index];
+            slots[index] = null;
+            try {
+                appenders.appendLoopOnAppenders(event);
+            } catch (RuntimeException e) {
+                addError("Failed to deliver event to attached appenders of [" + name + "].", e);
+            }
+        }
+        consumed.set(sequence - 1);
+
+        if (waitingProducers > 0) {
+            fullLock.lock();
+            try {
+                notFull.signalAll();
+            } finally {
+                fullLock.unlock();
+            }
+        }
+        return (int) (sequence - first);
+    }
+
+    private boolean hasPublished() {
+        long next = consumed.get() + 1;
+        return published.get((int) next & mask) == next;
+    }
+
+    int remainingCapacity() {
+        return slots.length - (int) (claimed.get() - consumed.get());
+    }
+
+    long getDiscardedCount() {
+        return discarded.sum();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(maxFlushTime.getMilliseconds());
+            if (worker.isAlive()) {
+                addWarn("Max flush time (" + maxFlushTime + ") exceeded. "
+                        + (claimed.get() - consumed.get()) + " queued events were possibly discarded.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            addError("Failed to join worker thread of [" + name + "].", e);
+        }
+        appenders.detachAndStopAllAppenders();
+        metrics.remove();
+    }
+
+    // ========== Configuración (logback-spring.xml) ==========
+
+    public void setRingSize(int ringSize) {
+        this.ringSize = ringSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    public void setDiscardingThreshold(int discardingThreshold) {
+        this.discardingThreshold = discardingThreshold;
+    }
+
+    public void setNeverBlock(boolean neverBlock) {
+        this.neverBlock = neverBlock;
+    }
+
+    public void setIncludeCallerData(boolean includeCallerData) {
+        this.includeCallerData = includeCallerData;
+    }
+
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+
+    public void setMaxFlushTime(Duration maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+
+    // ========== AppenderAttachable ==========
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> newAppender) {
+        addInfo("Attaching appender named [" + newAppender.getName() + "] to " + getClass().getSimpleName() + ".");
+        appenders.addAppender(newAppender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+
+    /**
+     * Cómo espera el hilo consumidor mientras el ring está vacío.
+     */
+    public enum WaitStrategy {
+        /** Espera activa: menor latencia, ocupa un núcleo de forma permanente. */
+        BUSY_SPIN {
+            @Override
+            int idle(RingBufferAsyncAppender appender, int idle) {
+                Thread.onSpinWait();
+                return idle + 1;
+            }
+        },
+        /** Espera activa breve y luego cede el procesador con {@link Thread#yield()}. */
+        YIELDING {
+            @Override
+            int idle(RingBufferAsyncAppender appender, int idle) {
+                if (idle < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+                return idle + 1;
+            }
+        },
+        /** Espera activa, cede el procesador y luego duerme de a 100 µs; los productores no lo despiertan. */
+        SLEEPING {
+            @Override
+            int idle(RingBufferAsyncAppender appender, int idle) {
+                if (idle < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else if (idle < SPIN_TRIES + 100) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                }
+                return idle + 1;
+            }
+        },
+        /** Se suspende hasta que un productor publica un evento (o pasan 10 ms). No consume CPU en reposo. */
+        BLOCKING {
+            @Override
+            int idle(RingBufferAsyncAppender appender, int idle) {
+                if (idle < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                    return idle + 1;
+                }
+                appender.consumerWaiting.set(true);
+                // Volver a mirar después de avisar, por si un productor publicó entre medio
+                if (!appender.hasPublished() && appender.running) {
+                    LockSupport.parkNanos(appender, TimeUnit.MILLISECONDS.toNanos(10));
+                }
+                appender.consumerWaiting.set(false);
+                return 0;
+            }
+        };
+
+        abstract int idle(RingBufferAsyncAppender appender, int idle);
+    }
+}
@@ -0,0 +1,53 @@
+package com.diegoip.order.config;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import com.diegoip.order.metrics.RepositoryMethodContext;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoCollection;
+
+/**
+ * MongoTemplate que ajusta cada operación según el contexto del hilo que la ejecuta:
+ * <ul>
+ *     <li>Tiempo máximo del método de repositorio en curso ({@link RepositoryMethodContext}), configurado
+ *     en {@link MongoDeadlineProperties}.</li>
+ *     <li>Read preference del método de servicio en curso ({@link ReadPreferenceContext}), configurada en
+ *     {@link MongoReadPreferenceProperties}. Sin configuración se lee del primario.</li>
+ * </ul>
+ *
+ * El plazo usa {@code MongoCollection#withTimeout} ({@code timeoutMS} del driver): el driver envía a MongoDB
+ * el tiempo restante como {@code maxTimeMS}, de modo que el servidor aborta la consulta cuando quien la pidió
+ * ya dejó de esperar, y el mismo plazo cubre la espera de una conexión del pool y la lectura del cursor.
+ * Al vencer, el driver lanza {@code MongoOperationTimeoutException}.
+ */
+public class RoutingMongoTemplate extends MongoTemplate {
+
+    private final MongoDeadlineProperties deadlines;
+
+    public RoutingMongoTemplate(MongoDatabaseFactory factory, MongoConverter converter, MongoDeadlineProperties deadlines) {
+        super(factory, converter);
+        this.deadlines = deadlines;
+    }
+
+    @Override
+    protected MongoCollection<Document> prepareCollection(MongoCollection<Document> collection) {
+        MongoCollection<Document> prepared = super.prepareCollection(collection);
+
+        ReadPreference readPreference = ReadPreferenceContext.current();
+        if (readPreference != null) {
+            prepared = prepared.withReadPreference(readPreference);
+        }
+
+        Duration deadline = deadlines.deadlineFor(RepositoryMethodContext.current());
+        if (deadline == null || deadline.isZero() || deadline.isNegative()) {
+            return prepared;
+        }
+        return prepared.withTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,290 @@
+package com.diegoip.order.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import ch.qos.logback.core.util.Duration;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TurboFilter que limita la cantidad de eventos por logger y por plantilla de mensaje (el {@code format}
+ * de la llamada), antes de que el mensaje se formatee y se ofusque.
+ *
+ * Cada par logger/plantilla tiene su propio token bucket con {@code defaultRate} eventos por segundo, o
+ * la cuota del prefijo de logger más largo que coincida ({@code <quota>com.diegoip.order.service=50</quota>};
+ * una cuota de 0 no limita). Los eventos que exceden la cuota se descartan, salvo uno de cada
+ * {@code sampleEvery} si está configurado. WARN y ERROR nunca se descartan.
+ *
+ * Cada {@code summaryInterval} se registra, con el mismo logger, cuántos eventos se suprimieron por plantilla.
+ * El total acumulado por logger se publica en {@code logging.events.suppressed}: los eventos descartados no
+ * llegan a ningún appender, así que {@code logging.events} ({@link LogMetricsAggregatingAppender}) solo cuenta
+ * los que pasaron el muestreo.
+ * Debe declararse antes de {@link MaskingTurboFilterV2} para que los eventos descartados no se ofusquen.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    // Se compara por identidad para que los resúmenes no pasen por el propio filtro
+    private static final String SUMMARY_FORMAT =
+            "Muestreo de logs: se suprimieron {} eventos de la plantilla \"{}\" en los últimos {} s";
+
+    private static final int MAX_SUMMARY_LINES = 50;
+    private static final String SUPPRESSED_METRIC = "logging.events.suppressed";
+
+    private final List<Quota> quotas = new ArrayList<>();
+    private final Map<Logger, LoggerBuckets> loggers = new ConcurrentHashMap<>();
+    private final AtomicInteger trackedTemplates = new AtomicInteger();
+    private final List<Meter> meters = new CopyOnWriteArrayList<>();
+
+    private int defaultRate = 100;
+    private int sampleEvery;
+    private int maxTemplates = 4096;
+    private Duration summaryInterval = Duration.buildByMinutes(1);
+
+    private ScheduledExecutorService summaryExecutor;
+
+    @Override
+    public void start() {
+        // Prefijos más largos primero: gana la cuota más específica
+        quotas.sort((a, b) -> Integer.compare(b.prefix().length(), a.prefix().length()));
+
+        summaryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-sampling-summary");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = summaryInterval.getMilliseconds();
+        summaryExecutor.scheduleAtFixedRate(this::emitSummaries, interval, interval, TimeUnit.MILLISECONDS);
+
+        addInfo("SamplingTurboFilter started with defaultRate " + defaultRate + "/s and " + quotas.size() + " quotas.");
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        if (summaryExecutor != null) {
+            summaryExecutor.shutdownNow();
+        }
+        meters.forEach(Metrics.globalRegistry::remove);
+        meters.clear();
+        loggers.clear();
+        trackedTemplates.set(0);
+        super.stop();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // Primero lo más barato: eventos deshabilitados, sin plantilla, WARN/ERROR y los propios resúmenes
+        if (!isStarted() || format == null || format == SUMMARY_FORMAT
+                || level.toInt() >= Level.WARN_INT || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+
+        LoggerBuckets buckets = loggers.get(logger);
+        if (buckets == null) {
+            buckets = loggers.computeIfAbsent(logger, this::newLoggerBuckets);
+        }
+        if (buckets.intervalNanos == 0) {
+            return FilterReply.NEUTRAL;
+        }
+
+        Bucket bucket = buckets.templates.get(format);
+        if (bucket == null) {
+            bucket = newBucket(buckets, format);
+            if (bucket == null) {
+                // Demasiadas plantillas distintas: las nuevas no se limitan
+                return FilterReply.NEUTRAL;
+            }
+        }
+        if (bucket.tryAcquire(System.nanoTime(), sampleEvery)) {
+            return FilterReply.NEUTRAL;
+        }
+        buckets.suppressed.increment();
+        return FilterReply.DENY;
+    }
+
+    private LoggerBuckets newLoggerBuckets(Logger logger) {
+        int rate = defaultRate;
+        for (Quota quota : quotas) {
+            if (logger.getName().startsWith(quota.prefix())) {
+                rate = quota.rate();
+                break;
+            }
+        }
+        LoggerBuckets created = new LoggerBuckets(logger, rate);
+        if (created.intervalNanos != 0) {
+            meters.add(FunctionCounter.builder(SUPPRESSED_METRIC, created.suppressed, LongAdder::sum)
+                    .description("Eventos de log descartados por el muestreo, antes de llegar a los appenders")
+                    .tag("logger", logger.getName())
+                    .register(Metrics.globalRegistry));
+        }
+        return created;
+    }
+
+    private Bucket newBucket(LoggerBuckets buckets, String format) {
+        if (trackedTemplates.get() >= maxTemplates) {
+            return null;
+        }
+        Bucket created = new Bucket(buckets.intervalNanos, buckets.toleranceNanos);
+        Bucket existing = buckets.templates.putIfAbsent(format, created);
+        if (existing != null) {
+            return existing;
+        }
+        trackedTemplates.incrementAndGet();
+        return created;
+    }
+
+    // ========== Resúmenes ==========
+
+    void emitSummaries() {
+        long seconds = TimeUnit.MILLISECONDS.toSeconds(summaryInterval.getMilliseconds());
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(summaryInterval.getMilliseconds());
+        long now = System.nanoTime();
+        int lines = 0;
+        long omitted = 0;
+
+        for (LoggerBuckets buckets : loggers.values()) {
+            for (Map.Entry<String, Bucket> entry : buckets.templates.entrySet()) {
+                Bucket bucket = entry.getValue();
+                long suppressed = bucket.suppressed.getAndSet(0);
+                if (suppressed > 0) {
+                    if (lines++ < MAX_SUMMARY_LINES) {
+                        buckets.logger.info(SUMMARY_FORMAT, suppressed, entry.getKey(), seconds);
+                    } else {
+                        omitted += suppressed;
+                    }
+                } else if (isIdle(bucket, now, idleNanos)
+                        && buckets.templates.remove(entry.getKey(), bucket)) {
+                    // Sin actividad en todo el intervalo: se deja de seguir la plantilla
+                    trackedTemplates.decrementAndGet();
+                }
+            }
+        }
+        if (omitted > 0) {
+            addWarn("Log sampling suppressed " + omitted + " more events in " + (lines - MAX_SUMMARY_LINES)
+                    + " templates not listed in the summary.");
+        }
+    }
+
+    private static boolean isIdle(Bucket bucket, long now, long idleNanos) {
+        long arrival = bucket.theoreticalArrival.get();
+        return arrival != Long.MIN_VALUE && now - arrival > idleNanos;
+    }
+
+    long getSuppressedCount() {
+        long total = 0;
+        for (LoggerBuckets buckets : loggers.values()) {
+            for (Bucket bucket : buckets.templates.values()) {
+                total += bucket.suppressed.get();
+            }
+        }
+        return total;
+    }
+
+    // ========== Configuración (logback-spring.xml) ==========
+
+    public void setDefaultRate(int defaultRate) {
+        this.defaultRate = Math.max(0, defaultRate);
+    }
+
+    /**
+     * Cuota por prefijo de logger con el formato {@code prefijo=eventosPorSegundo}.
+     */
+    public void addQuota(String quota) {
+        int separator = quota.lastIndexOf('=');
+        if (separator <= 0) {
+            addError("Invalid quota [" + quota + "], expected <loggerPrefix>=<eventsPerSecond>.");
+            return;
+        }
+        try {
+            int rate = Integer.parseInt(quota.substring(separator + 1).trim());
+            quotas.add(new Quota(quota.substring(0, separator).trim(), Math.max(0, rate)));
+        } catch (NumberFormatException e) {
+            addError("Invalid quota [" + quota + "], expected <loggerPrefix>=<eventsPerSecond>.", e);
+        }
+    }
+
+    public void setSampleEvery(int sampleEvery) {
+        this.sampleEvery = Math.max(0, sampleEvery);
+    }
+
+    public void setMaxTemplates(int maxTemplates) {
+        this.maxTemplates = Math.max(1, maxTemplates);
+    }
+
+    public void setSummaryInterval(Duration summaryInterval) {
+        this.summaryInterval = summaryInterval;
+    }
+
+    private record Quota(String prefix, int rate) {
+    }
+
+    /**
+     * Buckets de un logger; la cuota se resuelve una sola vez por logger.
+     */
+    private static final class LoggerBuckets {
+
+        final Logger logger;
+        final long intervalNanos;
+        final long toleranceNanos;
+        final Map<String, Bucket> templates = new ConcurrentHashMap<>();
+        // Acumulado para la métrica; el de cada plantilla se reinicia con cada resumen
+        final LongAdder suppressed = new LongAdder();
+
+        LoggerBuckets(Logger logger, int rate) {
+            this.logger = logger;
+            this.intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+            // Se admite una ráfaga de hasta un segundo de eventos
+            this.toleranceNanos = rate > 0 ? intervalNanos * (rate - 1) : 0;
+        }
+    }
+
+    /**
+     * Token bucket sin locks (GCRA): un único valor con el instante teórico de la próxima llegada.
+     */
+    private static final class Bucket {
+
+        final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+        final AtomicLong suppressed = new AtomicLong();
+        final AtomicLong overQuota = new AtomicLong();
+        final long intervalNanos;
+        final long toleranceNanos;
+
+        Bucket(long intervalNanos, long toleranceNanos) {
+            this.intervalNanos = intervalNanos;
+            this.toleranceNanos = toleranceNanos;
+        }
+
+        boolean tryAcquire(long now, int sampleEvery) {
+            while (true) {
+                long arrival = theoreticalArrival.get();
+                long base = arrival == Long.MIN_VALUE || now - arrival > 0 ? now : arrival;
+                if (base - now > toleranceNanos) {
+                    if (sampleEvery > 0 && overQuota.incrementAndGet() % sampleEvery == 0) {
+                        return true;
+                    }
+                    suppressed.incrementAndGet();
+                    return false;
+                }
+                if (theoreticalArrival.compareAndSet(arrival, base + intervalNanos)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.diegoip.order.config;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import com.diegoip.order.util.LogMaskingEngine;
+import com.diegoip.order.util.SensitiveFields;
+import com.diegoip.order.util.SensitiveValue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ofuscación de los argumentos de un log según su tipo.
+ *
+ * Un {@link SensitiveValue} o un objeto con campos {@code @Sensitive} se ofusca directamente, sin buscar
+ * patrones. Solo los textos sin tipo se recorren con {@link LogMaskingEngine}. El formato del mensaje
+ * se revisa una vez y el resultado se guarda, porque suele ser un literal que se repite.
+ */
+final class SensitiveArguments {
+
+    private static final int MAX_FORMATS = 4096;
+    private static final long MAX_SAFE_NUMBER = 10_000_000L;
+
+    private static final Map<String, Boolean> CLEAN_FORMATS = new ConcurrentHashMap<>();
+
+    private SensitiveArguments() {
+    }
+
+    /**
+     * Reemplaza en el arreglo los argumentos sensibles por su versión ofuscada. Los objetos sin tipo
+     * conocido se dejan intactos para no invocar su {@code toString()} antes de tiempo.
+     */
+    static void maskInPlace(Object[] params) {
+        for (int i = 0; i < params.length; i++) {
+            Object param = params[i];
+            if (param instanceof SensitiveValue value) {
+                params[i] = value.masked();
+            } else if (param instanceof String text) {
+                params[i] = LogMaskingEngine.mask(text);
+            } else if (param != null && SensitiveFields.hasSensitiveFields(param.getClass())) {
+                params[i] = SensitiveFields.render(param);
+            }
+        }
+    }
+
+    /**
+     * Arma el mensaje del evento con cada argumento ofuscado según su tipo.
+     */
+    static String maskedMessage(ILoggingEvent event) {
+        String format = event.getMessage();
+        Object[] arguments = event.getArgumentArray();
+        if (format == null) {
+            return null;
+        }
+        if (arguments == null || arguments.length == 0) {
+            return isCleanFormat(format) ? format : LogMaskingEngine.mask(format);
+        }
+        if (format.indexOf('\\') >= 0) {
+            // Las llaves escapadas siguen las reglas de MessageFormatter: se ofusca el mensaje ya formateado
+            return LogMaskingEngine.mask(event.getFormattedMessage());
+        }
+
+        StringBuilder sb = new StringBuilder(format.length() + 16 * arguments.length);
+        int last = 0;
+        int argument = 0;
+        for (int i = format.indexOf("{}"); i >= 0 && argument < arguments.length; i = format.indexOf("{}", last)) {
+            sb.append(format, last, i);
+            if (!appendMasked(arguments[argument++], sb)) {
+                return LogMaskingEngine.mask(event.getFormattedMessage());
+            }
+            last = i + 2;
+        }
+        sb.append(format, last, format.length());
+
+        String message = sb.toString();
+        return isCleanFormat(format) ? message : LogMaskingEngine.mask(message);
+    }
+
+    private static boolean appendMasked(Object argument, StringBuilder sb) {
+        if (argument == null) {
+            sb.append("null");
+        } else if (argument instanceof SensitiveValue value) {
+            sb.append(value.masked());
+        } else if (argument instanceof CharSequence text) {
+            LogMaskingEngine.maskTo(text, sb);
+        } else if (isSafe(argument)) {
+            sb.append(argument);
+        } else if (argument.getClass().isArray()) {
+            // MessageFormatter da a los arreglos un formato propio
+            return false;
+        } else if (SensitiveFields.hasSensitiveFields(argument.getClass())) {
+            sb.append(SensitiveFields.render(argument));
+        } else {
+            LogMaskingEngine.maskTo(String.valueOf(argument), sb);
+        }
+        return true;
+    }
+
+    private static boolean isSafe(Object argument) {
+        if (argument instanceof Integer || argument instanceof Long || argument instanceof Short || argument instanceof Byte) {
+            // Menos de 8 dígitos: no puede ser un DNI, teléfono ni tarjeta
+            long value = ((Number) argument).longValue();
+            return value > -MAX_SAFE_NUMBER && value < MAX_SAFE_NUMBER;
+        }
+        return argument instanceof Boolean || argument instanceof Character || argument instanceof Enum<?>;
+    }
+
+    static boolean isCleanFormat(String format) {
+        Boolean clean = CLEAN_FORMATS.get(format);
+        if (clean == null) {
+            clean = scanFormat(format);
+            // Los formatos suelen ser literales; el límite evita crecer sin control si se arman concatenando
+            if (CLEAN_FORMATS.size() < MAX_FORMATS) {
+                CLEAN_FORMATS.put(format, clean);
+            }
+        }
+        return clean;
+    }
+
+    private static boolean scanFormat(String format) {
+        if (format.indexOf('@') >= 0 || LogMaskingEngine.containsSensitiveData(format)) {
+            return false;
+        }
+        // Un argumento pegado a letras, dígitos u otro argumento podría formar un dato sensible al unirse
+        for (int i = format.indexOf("{}"); i >= 0; i = format.indexOf("{}", i + 2)) {
+            if ((i > 0 && joinsValue(format.charAt(i - 1))) || (i + 2 < format.length() && joinsValue(format.charAt(i + 2)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean joinsValue(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '%' || c == '+' || c == '-' || c == '{' || c == '}';
+    }
+}
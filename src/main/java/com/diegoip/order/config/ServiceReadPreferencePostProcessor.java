@@ -0,0 +1,112 @@
+package com.diegoip.order.config;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.util.ClassUtils;
+
+import com.mongodb.ReadPreference;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Envuelve los beans con métodos configurados en {@link MongoReadPreferenceProperties} en un proxy que
+ * publica la read preference del método en {@link ReadPreferenceContext} mientras se ejecuta; las
+ * consultas que haga el método (a través de {@link RoutingMongoTemplate}) van a los miembros que indique.
+ *
+ * El atraso máximo se eleva a 90 s si se configura uno menor, que es el mínimo que acepta el driver.
+ * Un modo inválido hace fallar el arranque.
+ */
+@Slf4j
+class ServiceReadPreferencePostProcessor implements BeanPostProcessor {
+
+    static final Duration MIN_MAX_STALENESS = Duration.ofSeconds(90);
+
+    private final MongoReadPreferenceProperties properties;
+    private final Set<String> classNames;
+
+    ServiceReadPreferencePostProcessor(Environment environment) {
+        this(Binder.get(environment)
+                .bind("app.mongodb.read-preference", MongoReadPreferenceProperties.class)
+                .orElseGet(MongoReadPreferenceProperties::new));
+    }
+
+    ServiceReadPreferencePostProcessor(MongoReadPreferenceProperties properties) {
+        this.properties = properties;
+        this.classNames = properties.getMethods().keySet().stream()
+                .map(method -> method.substring(0, Math.max(0, method.lastIndexOf('.'))))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> beanClass = ClassUtils.getUserClass(bean);
+        if (!classNames.contains(beanClass.getSimpleName())) {
+            return bean;
+        }
+
+        Map<Method, ReadPreference> routes = new HashMap<>();
+        for (Method method : beanClass.getMethods()) {
+            if (method.getDeclaringClass() != beanClass) {
+                continue;
+            }
+            String name = beanClass.getSimpleName() + "." + method.getName();
+            MongoReadPreferenceProperties.Routing routing = properties.getMethods().get(name);
+            if (routing != null) {
+                ReadPreference readPreference = readPreference(name, routing);
+                routes.put(method, readPreference);
+                log.info("Lecturas de {} con read preference {}", name, readPreference);
+            }
+        }
+        if (routes.isEmpty()) {
+            return bean;
+        }
+
+        MethodInterceptor interceptor = invocation -> {
+            ReadPreference readPreference = routes.get(invocation.getMethod());
+            if (readPreference == null) {
+                return invocation.proceed();
+            }
+            ReadPreference previous = ReadPreferenceContext.enter(readPreference);
+            try {
+                return invocation.proceed();
+            } finally {
+                ReadPreferenceContext.exit(previous);
+            }
+        };
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvice(0, interceptor);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(interceptor);
+        return proxyFactory.getProxy(beanClass.getClassLoader());
+    }
+
+    private ReadPreference readPreference(String method, MongoReadPreferenceProperties.Routing routing) {
+        if ("primary".equalsIgnoreCase(routing.getMode())) {
+            // El primario no admite atraso máximo
+            return ReadPreference.primary();
+        }
+        Duration maxStaleness = routing.getMaxStaleness() != null ? routing.getMaxStaleness() : properties.getMaxStaleness();
+        if (maxStaleness.compareTo(MIN_MAX_STALENESS) < 0) {
+            log.warn("El atraso máximo de {} ({}) es menor al mínimo del driver, se usa {}",
+                    method, maxStaleness, MIN_MAX_STALENESS);
+            maxStaleness = MIN_MAX_STALENESS;
+        }
+        return ReadPreference.valueOf(routing.getMode(), List.of(), maxStaleness.toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,45 @@
+package com.diegoip.order.config;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.diegoip.order.metrics.SingleFlightEndpoint;
+import com.diegoip.order.model.Order;
+import com.diegoip.order.model.Product;
+import com.diegoip.order.service.SingleFlight;
+import com.diegoip.order.util.SensitiveDigest;
+import com.diegoip.order.util.SensitiveType;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Agrupación de lecturas concurrentes ({@link SingleFlight}) en las consultas más repetidas: producto por
+ * SKU (ventas flash) y pedidos por DNI (reintentos de clientes).
+ */
+@Configuration
+public class SingleFlightConfig {
+
+    private static final int MAX_TRACKED_KEYS = 1000;
+
+    @Bean
+    public SingleFlight<String, Optional<Product>> productBySkuFlight(MeterRegistry meterRegistry) {
+        return new SingleFlight<>("ProductService.getProductBySku", Function.identity(), Function.identity(),
+                MAX_TRACKED_KEYS, meterRegistry);
+    }
+
+    @Bean
+    public SingleFlight<String, List<Order>> ordersByDniFlight(MeterRegistry meterRegistry) {
+        // El DNI es la clave: se cuenta por su huella (el DNI ofuscado se repite entre clientes) y se muestra ofuscado
+        return new SingleFlight<>("OrderService.getOrdersByDni", SensitiveDigest::of, SensitiveType.DNI::mask,
+                MAX_TRACKED_KEYS, meterRegistry);
+    }
+
+    @Bean
+    public SingleFlightEndpoint singleFlightEndpoint(List<SingleFlight<?, ?>> flights) {
+        return new SingleFlightEndpoint(flights);
+    }
+}
@@ -0,0 +1,48 @@
+package com.diegoip.order.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Objetivos de latencia (SLO) por ruta ({@code app.slo.*}). Las rutas se identifican por método y
+ * plantilla, por ejemplo {@code "GET /api/orders/dni/{dni}"}; las que no se configuran usan el objetivo por defecto.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.slo")
+public class SloProperties {
+
+    /** Latencia objetivo por defecto. */
+    private Duration defaultObjective = Duration.ofMillis(200);
+
+    /** Proporción de requests que debe cumplir el objetivo (0.99 = 99%). */
+    private double defaultTarget = 0.99;
+
+    /** Límites adicionales del histograma de SLO, además de los objetivos configurados. */
+    private List<Duration> buckets = List.of(Duration.ofMillis(50), Duration.ofMillis(100),
+            Duration.ofMillis(500), Duration.ofSeconds(1));
+
+    /** Objetivos específicos por ruta. */
+    private Map<String, Objective> routes = new LinkedHashMap<>();
+
+    public Duration objectiveFor(String route) {
+        Objective objective = routes.get(route);
+        return objective != null && objective.getLatency() != null ? objective.getLatency() : defaultObjective;
+    }
+
+    public double targetFor(String route) {
+        Objective objective = routes.get(route);
+        return objective != null && objective.getTarget() != null ? objective.getTarget() : defaultTarget;
+    }
+
+    @Data
+    public static class Objective {
+        private Duration latency;
+        private Double target;
+    }
+}
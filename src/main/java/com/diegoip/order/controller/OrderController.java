@@ -13,8 +13,12 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.diegoip.order.config.RequestLogContext;
 import com.diegoip.order.model.Order;
 import com.diegoip.order.service.OrderService;
+import com.diegoip.order.util.Sensitive;
+import com.diegoip.order.util.SensitiveType;
+import com.diegoip.order.util.SensitiveValue;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,31 +33,31 @@ public class OrderController {
     
     @GetMapping
     public ResponseEntity<List<Order>> getAllOrders() {
-        log.info("GET /api/orders - Solicitando listado completo de pedidos");
+        log.debug("GET /api/orders - Solicitando listado completo de pedidos");
         return ResponseEntity.ok(orderService.getAllOrders());
     }
     
     @GetMapping("/{id}")
     public ResponseEntity<Order> getOrderById(@PathVariable String id) {
-        log.info("GET /api/orders/{} - Solicitando pedido por ID", id);
+        log.debug("GET /api/orders/{} - Solicitando pedido por ID", id);
         return orderService.getOrderById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @GetMapping("/dni/{dni}")
-    public ResponseEntity<List<Order>> getOrdersByDni(@PathVariable String dni) {
-        log.info("GET /api/orders/dni/{} - Solicitando pedidos por DNI", dni);
+    public ResponseEntity<List<Order>> getOrdersByDni(@PathVariable @Sensitive(SensitiveType.DNI) String dni) {
+        log.debug("GET /api/orders/dni/{} - Solicitando pedidos por DNI", SensitiveValue.dni(dni));
         List<Order> orders = orderService.getOrdersByDni(dni);
         if (orders.isEmpty()) {
-            log.info("No se encontraron pedidos para el DNI: {}", dni);
+            log.debug("No se encontraron pedidos para el DNI: {}", SensitiveValue.dni(dni));
         }
         return ResponseEntity.ok(orders);
     }
     
     @GetMapping("/numero/{numeroPedido}")
-    public ResponseEntity<Order> getOrderByNumeroPedido(@PathVariable String numeroPedido) {
-        log.info("GET /api/orders/numero/{} - Solicitando pedido por número", numeroPedido);
+    public ResponseEntity<Order> getOrderByNumeroPedido(@PathVariable @Sensitive String numeroPedido) {
+        log.debug("GET /api/orders/numero/{} - Solicitando pedido por número", SensitiveValue.of(SensitiveType.GENERIC, numeroPedido));
         return orderService.getOrderByNumeroPedido(numeroPedido)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -61,14 +65,15 @@ public class OrderController {
     
     @PostMapping
     public ResponseEntity<Order> createOrder(@RequestBody Order order) {
-        log.info("POST /api/orders - Creando nuevo pedido para DNI: {}", order.getDni());
+        log.debug("POST /api/orders - Creando nuevo pedido para DNI: {}", SensitiveValue.dni(order.getDni()));
+        RequestLogContext.put("dni", SensitiveValue.dni(order.getDni()));
         Order createdOrder = orderService.createOrder(order);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);
     }
     
     @PutMapping("/{id}")
     public ResponseEntity<Order> updateOrder(@PathVariable String id, @RequestBody Order order) {
-        log.info("PUT /api/orders/{} - Actualizando pedido", id);
+        log.debug("PUT /api/orders/{} - Actualizando pedido", id);
         return orderService.updateOrder(id, order)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -76,7 +81,7 @@ public class OrderController {
     
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteOrder(@PathVariable String id) {
-        log.info("DELETE /api/orders/{} - Eliminando pedido", id);
+        log.debug("DELETE /api/orders/{} - Eliminando pedido", id);
         if (orderService.deleteOrder(id)) {
             return ResponseEntity.noContent().build();
         }
@@ -11,8 +11,10 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.diegoip.order.config.RequestLogContext;
 import com.diegoip.order.model.Product;
 import com.diegoip.order.service.ProductService;
 
@@ -29,13 +31,22 @@ public class ProductController {
     
     @GetMapping
     public ResponseEntity<List<Product>> getAllProducts() {
-        log.info("GET /api/products - Solicitando listado completo de productos");
+        log.debug("GET /api/products - Solicitando listado completo de productos");
         return ResponseEntity.ok(productService.getAllProducts());
     }
     
+    @GetMapping("/search")
+    public ResponseEntity<List<Product>> searchProducts(@RequestParam("q") String query,
+                                                        @RequestParam(defaultValue = "10") int limit) {
+        log.debug("GET /api/products/search - Buscando productos por nombre o SKU: {}", query);
+        // El texto buscado es libre y puede traer datos personales: el evento de acceso lleva solo su largo
+        RequestLogContext.put("q.length", query.length());
+        return ResponseEntity.ok(productService.searchProducts(query, limit));
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<Product> getProductById(@PathVariable String id) {
-        log.info("GET /api/products/{} - Solicitando producto por ID", id);
+        log.debug("GET /api/products/{} - Solicitando producto por ID", id);
         return productService.getProductById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -43,7 +54,7 @@ public class ProductController {
     
     @GetMapping("/sku/{sku}")
     public ResponseEntity<Product> getProductBySku(@PathVariable String sku) {
-        log.info("GET /api/products/sku/{} - Solicitando producto por SKU", sku);
+        log.debug("GET /api/products/sku/{} - Solicitando producto por SKU", sku);
         return productService.getProductBySku(sku)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -51,13 +62,13 @@ public class ProductController {
     
     @GetMapping("/categoria/{categoria}")
     public ResponseEntity<List<Product>> getProductsByCategoria(@PathVariable String categoria) {
-        log.info("GET /api/products/categoria/{} - Solicitando productos por categoría", categoria);
+        log.debug("GET /api/products/categoria/{} - Solicitando productos por categoría", categoria);
         return ResponseEntity.ok(productService.getProductsByCategoria(categoria));
     }
     
     @PostMapping
     public ResponseEntity<?> createProduct(@RequestBody Product product) {
-        log.info("POST /api/products - Creando nuevo producto: {}", product.getNombre());
+        log.debug("POST /api/products - Creando nuevo producto: {}", product.getNombre());
         try {
             Product createdProduct = productService.createProduct(product);
             return ResponseEntity.status(HttpStatus.CREATED).body(createdProduct);
@@ -70,7 +81,7 @@ public class ProductController {
     
     @PutMapping("/{id}")
     public ResponseEntity<?> updateProduct(@PathVariable String id, @RequestBody Product product) {
-        log.info("PUT /api/products/{} - Actualizando producto", id);
+        log.debug("PUT /api/products/{} - Actualizando producto", id);
         try {
             return productService.updateProduct(id, product)
                     .map(updatedProduct -> ResponseEntity.ok((Object) updatedProduct))
@@ -84,7 +95,7 @@ public class ProductController {
     
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable String id) {
-        log.info("DELETE /api/products/{} - Eliminando producto", id);
+        log.debug("DELETE /api/products/{} - Eliminando producto", id);
         if (productService.deleteProduct(id)) {
             return ResponseEntity.noContent().build();
         }
@@ -0,0 +1,86 @@
+package com.diegoip.order.metrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+
+import com.diegoip.order.config.HttpSloMetricsConfig;
+import com.diegoip.order.config.SloProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+
+/**
+ * Cuenta, al terminar cada request a una ruta de la API, si cumplió el SLO de latencia: respondió sin
+ * error 5xx y dentro del objetivo de la ruta. El contador {@code http.server.requests.slo} lleva los
+ * mismos tags {@code method} y {@code uri} que {@code http.server.requests} y un tag {@code result}
+ * ({@code within}, {@code exceeded} o {@code error}).
+ *
+ * Los conteos del histograma del timer se reinician con la ventana de las estadísticas de distribución;
+ * estos contadores son acumulados, así que "cumplen" y "total" abarcan siempre el mismo período.
+ */
+public class HttpSloObservationHandler implements ObservationHandler<ServerRequestObservationContext> {
+
+    public static final String HTTP_SERVER_REQUESTS_SLO = HttpSloMetricsConfig.HTTP_SERVER_REQUESTS + ".slo";
+    public static final String RESULT_WITHIN = "within";
+
+    private static final String START_KEY = HttpSloObservationHandler.class.getName() + ".start";
+
+    private final MeterRegistry registry;
+    private final SloProperties properties;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public HttpSloObservationHandler(MeterRegistry registry, SloProperties properties) {
+        this.registry = registry;
+        this.properties = properties;
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return context instanceof ServerRequestObservationContext;
+    }
+
+    @Override
+    public void onStart(ServerRequestObservationContext context) {
+        context.put(START_KEY, System.nanoTime());
+    }
+
+    @Override
+    public void onStop(ServerRequestObservationContext context) {
+        Long start = context.get(START_KEY);
+        String uri = context.getPathPattern();
+        if (start == null || !HttpSloMetricsConfig.isApiRoute(uri)) {
+            return;
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        String method = context.getCarrier().getMethod();
+        int status = context.getResponse() != null ? context.getResponse().getStatus() : 500;
+
+        String result;
+        if (status >= 500 || context.getError() != null) {
+            result = "error";
+        } else if (elapsedNanos <= objectiveFor(method, uri).toNanos()) {
+            result = RESULT_WITHIN;
+        } else {
+            result = "exceeded";
+        }
+        counter(method, uri, result).increment();
+    }
+
+    private Duration objectiveFor(String method, String uri) {
+        return properties.objectiveFor(method + " " + uri);
+    }
+
+    private Counter counter(String method, String uri, String result) {
+        return counters.computeIfAbsent(method + " " + uri + " " + result, key -> Counter.builder(HTTP_SERVER_REQUESTS_SLO)
+                .description("Requests a la API según cumplan el objetivo de latencia de la ruta")
+                .tag("method", method)
+                .tag("uri", uri)
+                .tag("result", result)
+                .register(registry));
+    }
+}
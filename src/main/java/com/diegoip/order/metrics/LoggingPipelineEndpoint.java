@@ -0,0 +1,228 @@
+package com.diegoip.order.metrics;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import com.diegoip.order.config.LoggingPipelineMetrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * Endpoint de actuator ({@code /actuator/logpipeline}) con el estado del pipeline de logging: eventos y
+ * descartes por appender, colas, tiempo de ofuscación y de codificación, y los envíos a la Log API.
+ *
+ * Los totales son acumulados desde el arranque. Los valores {@code perSecond} son los de la última ventana
+ * completa de {@code rateWindowSeconds}, que se cierra en segundo plano: no dependen de quién consultó el
+ * endpoint ni de cuándo.
+ */
+@Endpoint(id = "logpipeline")
+public class LoggingPipelineEndpoint implements AutoCloseable {
+
+    private static final String LOG_API_DROPPED = "logging.newrelic.logapi.dropped";
+    private static final String LOG_API_QUEUE_SIZE = "logging.newrelic.logapi.queue.size";
+    private static final String LOG_API_QUEUE_CAPACITY = "logging.newrelic.logapi.queue.capacity";
+    private static final String LOG_API_BATCH_EVENTS = "logging.newrelic.logapi.batch.events";
+    private static final String LOG_API_BATCH_BYTES = "logging.newrelic.logapi.batch.bytes";
+    private static final String LOG_API_SEND = "logging.newrelic.logapi.send";
+
+    private final MeterRegistry registry;
+    private final ScheduledExecutorService scheduler;
+
+    // Solo los modifica snapshot(), desde el hilo programado
+    private Map<String, Double> windowStartTotals;
+    private long windowStartNanos;
+    private volatile Window lastWindow = new Window(0, Map.of());
+
+    public LoggingPipelineEndpoint(MeterRegistry registry, Duration rateWindow) {
+        this.registry = registry;
+        this.windowStartTotals = totals();
+        this.windowStartNanos = System.nanoTime();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-pipeline-rates");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = rateWindow.toMillis();
+        scheduler.scheduleAtFixedRate(this::snapshot, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @ReadOperation
+    public Map<String, Object> pipeline() {
+        Window window = lastWindow;
+        Map<String, Accumulator> appenders = appenders();
+
+        Map<String, AppenderStats> appenderStats = new LinkedHashMap<>();
+        appenders.forEach((name, acc) -> appenderStats.put(name, new AppenderStats(
+                (long) acc.events, window.rate(name + ".events"),
+                (long) acc.dropped, window.rate(name + ".dropped"),
+                acc.queueSize, acc.queueCapacity)));
+
+        Map<String, Latency> encoding = new TreeMap<>();
+        for (Timer timer : registry.find(LoggingPipelineMetrics.ENCODING).timers()) {
+            encoding.put(timer.getId().getTag("encoder"), latency(timer, TimeUnit.MICROSECONDS));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("rateWindowSeconds", round(window.seconds()));
+        result.put("appenders", appenderStats);
+        Timer masking = registry.find(LoggingPipelineMetrics.MASKING).timer();
+        if (masking != null) {
+            result.put("masking", latency(masking, TimeUnit.MICROSECONDS));
+        }
+        result.put("encoding", encoding);
+        result.put("logApi", logApi(window));
+        return result;
+    }
+
+    /**
+     * Cierra la ventana actual: calcula las tasas desde la ventana anterior y abre la siguiente.
+     */
+    synchronized void snapshot() {
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-3, (now - windowStartNanos) / 1e9);
+        Map<String, Double> totals = totals();
+        Map<String, Double> rates = new HashMap<>();
+        totals.forEach((key, total) -> {
+            double previous = windowStartTotals.getOrDefault(key, 0.0);
+            // Un contador que bajó es un appender reiniciado: se toma desde cero
+            rates.put(key, round(Math.max(0, total >= previous ? total - previous : total) / seconds));
+        });
+        lastWindow = new Window(seconds, rates);
+        windowStartTotals = totals;
+        windowStartNanos = now;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private Map<String, Accumulator> appenders() {
+        Map<String, Accumulator> appenders = new TreeMap<>();
+        for (FunctionCounter counter : registry.find(LoggingPipelineMetrics.EVENTS).functionCounters()) {
+            appender(appenders, counter.getId().getTag("appender")).events += counter.count();
+        }
+        for (String name : new String[] {LoggingPipelineMetrics.DROPPED, LOG_API_DROPPED}) {
+            for (FunctionCounter counter : registry.find(name).functionCounters()) {
+                appender(appenders, counter.getId().getTag("appender")).dropped += counter.count();
+            }
+        }
+        for (String name : new String[] {LoggingPipelineMetrics.QUEUE_SIZE, LOG_API_QUEUE_SIZE}) {
+            for (Gauge gauge : registry.find(name).gauges()) {
+                appender(appenders, gauge.getId().getTag("appender")).queueSize = (long) gauge.value();
+            }
+        }
+        for (String name : new String[] {LoggingPipelineMetrics.QUEUE_CAPACITY, LOG_API_QUEUE_CAPACITY}) {
+            for (Gauge gauge : registry.find(name).gauges()) {
+                appender(appenders, gauge.getId().getTag("appender")).queueCapacity = (long) gauge.value();
+            }
+        }
+        return appenders;
+    }
+
+    private Map<String, Double> totals() {
+        Map<String, Double> totals = new HashMap<>();
+        appenders().forEach((name, acc) -> {
+            totals.put(name + ".events", acc.events);
+            totals.put(name + ".dropped", acc.dropped);
+        });
+        for (DistributionSummary events : registry.find(LOG_API_BATCH_EVENTS).summaries()) {
+            totals.merge(events.getId().getTag("appender") + ".batches", (double) events.count(), Double::sum);
+        }
+        return totals;
+    }
+
+    private Map<String, LogApiStats> logApi(Window window) {
+        Map<String, LogApiStats> result = new TreeMap<>();
+        for (DistributionSummary events : registry.find(LOG_API_BATCH_EVENTS).summaries()) {
+            String appender = events.getId().getTag("appender");
+            DistributionSummary bytes = registry.find(LOG_API_BATCH_BYTES).tag("appender", appender).summary();
+
+            Map<String, Latency> send = new TreeMap<>();
+            for (Timer timer : registry.find(LOG_API_SEND).tag("appender", appender).timers()) {
+                send.put(timer.getId().getTag("status"), latency(timer, TimeUnit.MILLISECONDS));
+            }
+            result.put(appender, new LogApiStats(
+                    events.count(), window.rate(appender + ".batches"),
+                    round(events.mean()), round(events.max()),
+                    bytes != null ? round(bytes.mean()) : 0, bytes != null ? round(bytes.max()) : 0,
+                    send));
+        }
+        return result;
+    }
+
+    private static Accumulator appender(Map<String, Accumulator> appenders, String name) {
+        return appenders.computeIfAbsent(name != null ? name : "unknown", n -> new Accumulator());
+    }
+
+    private static Latency latency(Timer timer, TimeUnit unit) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Double> percentiles = new TreeMap<>();
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            percentiles.put("p" + BigDecimal.valueOf(value.percentile()).movePointRight(2).stripTrailingZeros()
+                    .toPlainString().replace(".", ""), round(value.value(unit)));
+        }
+        return new Latency(unit.name().toLowerCase(), snapshot.count(), round(snapshot.mean(unit)),
+                round(snapshot.max(unit)), percentiles);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    public record AppenderStats(
+            long events,
+            double eventsPerSecond,
+            long dropped,
+            double droppedPerSecond,
+            long queueSize,
+            long queueCapacity) {
+    }
+
+    public record Latency(String unit, long count, double mean, double max, Map<String, Double> percentiles) {
+    }
+
+    public record LogApiStats(
+            long batches,
+            double batchesPerSecond,
+            double meanBatchEvents,
+            double maxBatchEvents,
+            double meanBatchBytes,
+            double maxBatchBytes,
+            Map<String, Latency> sendByStatus) {
+    }
+
+    /**
+     * Tasas de la última ventana cerrada.
+     */
+    private record Window(double seconds, Map<String, Double> rates) {
+
+        double rate(String key) {
+            return rates.getOrDefault(key, 0.0);
+        }
+    }
+
+    private static final class Accumulator {
+
+        private double events;
+        private double dropped;
+        private long queueSize;
+        private long queueCapacity;
+    }
+}
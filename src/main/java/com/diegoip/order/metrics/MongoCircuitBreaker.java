@@ -0,0 +1,208 @@
+package com.diegoip.order.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.dao.QueryTimeoutException;
+
+import com.diegoip.order.config.MongoCircuitBreakerProperties;
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.MongoOperationTimeoutException;
+import com.mongodb.MongoSocketReadTimeoutException;
+import com.mongodb.MongoTimeoutException;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Circuit breaker de las llamadas a repositorios MongoDB, aplicado por {@link RepositoryMethodInterceptor}.
+ *
+ * Cuenta las llamadas y las que terminaron por timeout (plazo de la operación, {@code maxTimeMS}, selección
+ * de servidor o espera de conexión) en ventanas de {@code window}. Si en la ventana hubo al menos
+ * {@code minimumCalls} y la proporción de timeouts alcanza {@code timeoutRateThreshold}, el circuito se
+ * abre: durante {@code openDuration} las llamadas fallan en el acto con {@link MongoCircuitOpenException}
+ * (503) sin llegar al driver. Después deja pasar {@code halfOpenCalls} llamadas de prueba; si todas
+ * terminan sin timeout se cierra, y con el primer timeout vuelve a abrirse.
+ *
+ * Otros errores (clave duplicada, validaciones) cuentan como llamadas pero nunca abren el circuito.
+ */
+@Slf4j
+public class MongoCircuitBreaker {
+
+    public static final String STATE = "mongodb.circuit.state";
+    public static final String REJECTED = "mongodb.circuit.rejected";
+    public static final String TIMEOUTS = "mongodb.circuit.timeouts";
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final long windowNanos;
+    private final int minimumCalls;
+    private final double timeoutRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private final AtomicReference<Phase> phase;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public MongoCircuitBreaker(MongoCircuitBreakerProperties properties, MeterRegistry registry) {
+        this.windowNanos = properties.getWindow().toNanos();
+        this.minimumCalls = Math.max(1, properties.getMinimumCalls());
+        this.timeoutRateThreshold = properties.getTimeoutRateThreshold();
+        this.openNanos = properties.getOpenDuration().toNanos();
+        this.halfOpenCalls = Math.max(1, properties.getHalfOpenCalls());
+        this.phase = new AtomicReference<>(Phase.closed(System.nanoTime()));
+
+        Gauge.builder(STATE, this, breaker -> breaker.getState().ordinal())
+                .description("Estado del circuit breaker de MongoDB (0 cerrado, 1 abierto, 2 semiabierto)")
+                .register(registry);
+        FunctionCounter.builder(REJECTED, rejected, LongAdder::sum)
+                .description("Llamadas a repositorios rechazadas con el circuito abierto")
+                .register(registry);
+        FunctionCounter.builder(TIMEOUTS, timeouts, LongAdder::sum)
+                .description("Llamadas a repositorios que terminaron por timeout")
+                .register(registry);
+    }
+
+    /**
+     * Verifica si la llamada puede ir a MongoDB.
+     *
+     * @throws MongoCircuitOpenException si el circuito está abierto
+     */
+    void acquire(String repositoryMethod) {
+        Phase current = phase.get();
+        if (current.state == State.CLOSED) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (current.state == State.OPEN) {
+            if (now - current.since < openNanos) {
+                rejected.increment();
+                throw new MongoCircuitOpenException(repositoryMethod);
+            }
+            // Terminó el tiempo abierto: un solo hilo pasa a semiabierto
+            Phase halfOpen = Phase.halfOpen(now, halfOpenCalls);
+            current = phase.compareAndSet(current, halfOpen) ? halfOpen : phase.get();
+            if (current.state == State.CLOSED) {
+                return;
+            }
+        }
+        if (current.state != State.HALF_OPEN || current.permits.getAndDecrement() <= 0) {
+            rejected.increment();
+            throw new MongoCircuitOpenException(repositoryMethod);
+        }
+    }
+
+    /**
+     * Registra el resultado de una llamada que pasó por {@link #acquire}.
+     */
+    void record(Throwable failure) {
+        boolean timeout = failure != null && isTimeout(failure);
+        if (timeout) {
+            timeouts.increment();
+        }
+
+        Phase current = phase.get();
+        long now = System.nanoTime();
+        switch (current.state) {
+            case CLOSED -> recordClosed(current, timeout, now);
+            case HALF_OPEN -> {
+                if (timeout) {
+                    open(current, now, "una llamada de prueba terminó por timeout");
+                } else if (current.successes.incrementAndGet() >= halfOpenCalls
+                        && phase.compareAndSet(current, Phase.closed(now))) {
+                    log.info("Circuit breaker de MongoDB cerrado: las llamadas de prueba terminaron sin timeout");
+                }
+            }
+            case OPEN -> {
+                // Llamada que empezó antes de abrirse el circuito
+            }
+        }
+    }
+
+    private void recordClosed(Phase current, boolean timeout, long now) {
+        if (now - current.since >= windowNanos) {
+            // Ventana vencida: la primera llamada que lo nota empieza una nueva
+            Phase next = Phase.closed(now);
+            current = phase.compareAndSet(current, next) ? next : phase.get();
+            if (current.state != State.CLOSED) {
+                return;
+            }
+        }
+        current.calls.increment();
+        if (!timeout) {
+            return;
+        }
+        current.timeouts.increment();
+        long calls = current.calls.sum();
+        long windowTimeouts = current.timeouts.sum();
+        if (calls >= minimumCalls && windowTimeouts >= timeoutRateThreshold * calls) {
+            open(current, now, windowTimeouts + " de " + calls + " llamadas terminaron por timeout");
+        }
+    }
+
+    private void open(Phase current, long now, String reason) {
+        if (phase.compareAndSet(current, Phase.open(now))) {
+            log.warn("Circuit breaker de MongoDB abierto por {} s: {}", openNanos / 1_000_000_000, reason);
+        }
+    }
+
+    static boolean isTimeout(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoOperationTimeoutException || cause instanceof MongoExecutionTimeoutException
+                    || cause instanceof MongoTimeoutException || cause instanceof MongoSocketReadTimeoutException
+                    || cause instanceof QueryTimeoutException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    public State getState() {
+        Phase current = phase.get();
+        if (current.state == State.OPEN && System.nanoTime() - current.since >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return current.state;
+    }
+
+    /**
+     * Estado del circuito con sus contadores. Cada cambio de estado reemplaza la instancia, así que los
+     * contadores nunca se reinician.
+     */
+    private static final class Phase {
+
+        final State state;
+        final long since;
+        final LongAdder calls = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final AtomicInteger permits;
+        final AtomicInteger successes = new AtomicInteger();
+
+        private Phase(State state, long since, int permits) {
+            this.state = state;
+            this.since = since;
+            this.permits = new AtomicInteger(permits);
+        }
+
+        static Phase closed(long now) {
+            return new Phase(State.CLOSED, now, 0);
+        }
+
+        static Phase open(long now) {
+            return new Phase(State.OPEN, now, 0);
+        }
+
+        static Phase halfOpen(long now, int permits) {
+            return new Phase(State.HALF_OPEN, now, permits);
+        }
+    }
+}
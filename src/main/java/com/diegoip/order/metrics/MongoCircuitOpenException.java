@@ -0,0 +1,17 @@
+package com.diegoip.order.metrics;
+
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Llamada a un repositorio rechazada sin llegar a MongoDB porque el {@link MongoCircuitBreaker} está abierto.
+ * Se responde 503: el error es transitorio y el cliente puede reintentar.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class MongoCircuitOpenException extends TransientDataAccessResourceException {
+
+    public MongoCircuitOpenException(String repositoryMethod) {
+        super("Circuit breaker de MongoDB abierto, llamada rechazada: " + repositoryMethod);
+    }
+}
@@ -0,0 +1,101 @@
+package com.diegoip.order.metrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.diegoip.order.config.RequestLogContext;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * CommandListener del driver de MongoDB que registra un histograma de latencia por comando,
+ * colección y método de repositorio ({@code mongodb.repository.commands}) y guarda los comandos
+ * que superan el umbral de lentitud en un {@link SlowMongoCommandLog}. El tiempo de cada comando se suma
+ * además al {@link RequestLogContext} de la petición en curso.
+ */
+@Slf4j
+public class MongoCommandMetricsListener implements CommandListener {
+
+    public static final String METRIC_NAME = "mongodb.repository.commands";
+
+    private final MeterRegistry registry;
+    private final SlowMongoCommandLog slowCommandLog;
+    private final long slowThresholdNanos;
+
+    private final Map<Integer, InFlightCommand> inFlight = new ConcurrentHashMap<>();
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public MongoCommandMetricsListener(MeterRegistry registry, SlowMongoCommandLog slowCommandLog, Duration slowThreshold) {
+        this.registry = registry;
+        this.slowCommandLog = slowCommandLog;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        String commandName = event.getCommandName();
+        inFlight.put(event.getRequestId(), new InFlightCommand(
+                MongoCommandRedactor.collection(commandName, event.getCommand()),
+                RepositoryMethodContext.current(),
+                MongoCommandRedactor.filterShape(commandName, event.getCommand())));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        complete(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), false);
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        complete(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), true);
+    }
+
+    private void complete(int requestId, String commandName, long elapsedNanos, boolean failed) {
+        // Se notifica en el hilo de la petición: suma al evento de acceso (ver AccessLogFilter)
+        RequestLogContext.recordMongoCommand(elapsedNanos);
+        InFlightCommand command = inFlight.remove(requestId);
+        if (command == null) {
+            return;
+        }
+
+        timer(new TimerKey(commandName, command.collection(), command.repositoryMethod(), failed))
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        if (elapsedNanos >= slowThresholdNanos) {
+            double durationMs = elapsedNanos / 1_000_000.0;
+            slowCommandLog.record(new SlowMongoCommand(Instant.now(), command.repositoryMethod(), commandName,
+                    command.collection(), command.filter(), durationMs, failed));
+            log.warn("Comando MongoDB lento: {} sobre {} desde {} tardó {} ms - filtro {}",
+                    commandName, command.collection(), command.repositoryMethod(), Math.round(durationMs), command.filter());
+        }
+    }
+
+    private Timer timer(TimerKey key) {
+        return timers.computeIfAbsent(key, k -> Timer.builder(METRIC_NAME)
+                .description("Latencia de comandos MongoDB por método de repositorio")
+                .tag("command", k.command())
+                .tag("collection", k.collection())
+                .tag("method", k.repositoryMethod())
+                .tag("outcome", k.failed() ? "failure" : "success")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry));
+    }
+
+    private record InFlightCommand(String collection, String repositoryMethod, String filter) {
+    }
+
+    private record TimerKey(String command, String collection, String repositoryMethod, boolean failed) {
+    }
+}
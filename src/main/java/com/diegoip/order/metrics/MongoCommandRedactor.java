@@ -0,0 +1,92 @@
+package com.diegoip.order.metrics;
+
+import java.util.Map;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+/**
+ * Obtiene la "forma" del filtro de un comando MongoDB sin sus valores: se conservan los nombres de
+ * campos y operadores y cada valor se reemplaza por "?". Así el registro de comandos lentos permite
+ * reconocer la consulta (y detectar scans de colección) sin exponer DNIs ni otros datos.
+ */
+public final class MongoCommandRedactor {
+
+    private static final int MAX_LENGTH = 512;
+    private static final int MAX_ARRAY_ITEMS = 3;
+
+    private MongoCommandRedactor() {
+    }
+
+    public static String filterShape(String commandName, BsonDocument command) {
+        BsonValue filter = switch (commandName) {
+            case "find" -> command.get("filter");
+            case "count", "distinct", "findAndModify", "findandmodify" -> command.get("query");
+            case "aggregate" -> command.get("pipeline");
+            case "delete" -> firstStatementField(command, "deletes", "q");
+            case "update" -> firstStatementField(command, "updates", "q");
+            default -> null;
+        };
+        if (filter == null) {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        appendRedacted(filter, sb);
+        return sb.length() > MAX_LENGTH ? sb.substring(0, MAX_LENGTH) + "..." : sb.toString();
+    }
+
+    public static String collection(String commandName, BsonDocument command) {
+        BsonValue value = command.get(commandName);
+        if (value != null && value.isString()) {
+            return value.asString().getValue();
+        }
+        // getMore y similares indican la colección en un campo aparte
+        BsonValue collection = command.get("collection");
+        return collection != null && collection.isString() ? collection.asString().getValue() : "none";
+    }
+
+    private static BsonValue firstStatementField(BsonDocument command, String statements, String field) {
+        BsonValue value = command.get(statements);
+        if (value == null || !value.isArray() || value.asArray().isEmpty()) {
+            return null;
+        }
+        BsonValue first = value.asArray().get(0);
+        return first.isDocument() ? first.asDocument().get(field) : null;
+    }
+
+    private static void appendRedacted(BsonValue value, StringBuilder sb) {
+        if (sb.length() > MAX_LENGTH) {
+            return;
+        }
+        if (value.isDocument()) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+                if (!first) {
+                    sb.append(", ");
+                }
+                first = false;
+                sb.append(entry.getKey()).append(": ");
+                appendRedacted(entry.getValue(), sb);
+            }
+            sb.append('}');
+        } else if (value.isArray()) {
+            BsonArray array = value.asArray();
+            sb.append('[');
+            for (int i = 0; i < array.size() && i < MAX_ARRAY_ITEMS; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                appendRedacted(array.get(i), sb);
+            }
+            if (array.size() > MAX_ARRAY_ITEMS) {
+                sb.append(", ...");
+            }
+            sb.append(']');
+        } else {
+            sb.append('?');
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.diegoip.order.metrics;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolClosedEvent;
+import com.mongodb.event.ConnectionPoolCreatedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * ConnectionPoolListener que expone el estado del pool de conexiones de MongoDB por servidor:
+ * conexiones en uso, hilos esperando conexión, tiempo de espera del checkout (histograma),
+ * fallos de checkout por motivo y rotación del pool (conexiones creadas y cerradas).
+ */
+public class MongoConnectionPoolMetricsListener implements ConnectionPoolListener {
+
+    private static final String PREFIX = "mongodb.pool.";
+
+    private final MeterRegistry registry;
+    private final Map<ServerAddress, PoolState> pools = new ConcurrentHashMap<>();
+
+    public MongoConnectionPoolMetricsListener(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void connectionPoolCreated(ConnectionPoolCreatedEvent event) {
+        state(event.getServerId());
+    }
+
+    @Override
+    public void connectionPoolClosed(ConnectionPoolClosedEvent event) {
+        PoolState state = pools.remove(event.getServerId().getAddress());
+        if (state != null) {
+            state.meters().forEach(registry::remove);
+            state.reasonCounters().values().forEach(registry::remove);
+        }
+    }
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        state(event.getServerId()).waiting().incrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        PoolState state = state(event.getConnectionId().getServerId());
+        state.waiting().decrementAndGet();
+        state.checkedOut().incrementAndGet();
+        state.waitTime().record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        PoolState state = state(event.getServerId());
+        state.waiting().decrementAndGet();
+        state.waitTime().record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        reasonCounter(state, "checkout.failures", "Checkouts de conexión fallidos por motivo",
+                event.getReason().name()).increment();
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        state(event.getConnectionId().getServerId()).checkedOut().decrementAndGet();
+    }
+
+    @Override
+    public void connectionCreated(ConnectionCreatedEvent event) {
+        PoolState state = state(event.getConnectionId().getServerId());
+        state.size().incrementAndGet();
+        state.created().increment();
+    }
+
+    @Override
+    public void connectionClosed(ConnectionClosedEvent event) {
+        PoolState state = state(event.getConnectionId().getServerId());
+        state.size().decrementAndGet();
+        reasonCounter(state, "connections.closed", "Conexiones cerradas por motivo (rotación del pool)",
+                event.getReason().name()).increment();
+    }
+
+    /**
+     * Contador por motivo del servidor. Se guarda en el {@link PoolState} para quitarlo del registro
+     * junto con el resto cuando se cierra el pool.
+     */
+    private Counter reasonCounter(PoolState state, String name, String description, String reason) {
+        String tag = reason.toLowerCase(Locale.ROOT);
+        return state.reasonCounters().computeIfAbsent(name + "|" + tag, key -> Counter.builder(PREFIX + name)
+                .description(description)
+                .tags(state.tags())
+                .tag("reason", tag)
+                .register(registry));
+    }
+
+    private PoolState state(ServerId serverId) {
+        return pools.computeIfAbsent(serverId.getAddress(), this::register);
+    }
+
+    private PoolState register(ServerAddress address) {
+        Tags tags = Tags.of("server", address.toString());
+        AtomicInteger size = new AtomicInteger();
+        AtomicInteger checkedOut = new AtomicInteger();
+        AtomicInteger waiting = new AtomicInteger();
+
+        Gauge sizeGauge = Gauge.builder(PREFIX + "size", size, AtomicInteger::get)
+                .description("Conexiones abiertas en el pool")
+                .tags(tags)
+                .register(registry);
+        Gauge checkedOutGauge = Gauge.builder(PREFIX + "checkedout", checkedOut, AtomicInteger::get)
+                .description("Conexiones actualmente en uso")
+                .tags(tags)
+                .register(registry);
+        Gauge waitingGauge = Gauge.builder(PREFIX + "waiting", waiting, AtomicInteger::get)
+                .description("Hilos esperando una conexión del pool")
+                .tags(tags)
+                .register(registry);
+        Timer waitTime = Timer.builder(PREFIX + "checkout.wait")
+                .description("Tiempo de espera para obtener una conexión del pool")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100_000))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry);
+        Counter created = Counter.builder(PREFIX + "connections.created")
+                .description("Conexiones creadas (rotación del pool)")
+                .tags(tags)
+                .register(registry);
+
+        return new PoolState(tags, size, checkedOut, waiting, waitTime, created,
+                List.of(sizeGauge, checkedOutGauge, waitingGauge, waitTime, created), new ConcurrentHashMap<>());
+    }
+
+    private record PoolState(Tags tags, AtomicInteger size, AtomicInteger checkedOut, AtomicInteger waiting,
+                             Timer waitTime, Counter created, List<Meter> meters,
+                             Map<String, Counter> reasonCounters) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.diegoip.order.metrics;
+
+/**
+ * Contexto por hilo con el método de repositorio que se está ejecutando (p. ej. "OrderRepository.findByDni").
+ * El driver síncrono de MongoDB notifica los comandos en el mismo hilo que los emite, por lo que
+ * los listeners pueden atribuir cada comando al método de repositorio que lo originó.
+ */
+public final class RepositoryMethodContext {
+
+    public static final String NONE = "none";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private RepositoryMethodContext() {
+    }
+
+    public static String current() {
+        String method = CURRENT.get();
+        return method != null ? method : NONE;
+    }
+
+    static String enter(String method) {
+        String previous = CURRENT.get();
+        CURRENT.set(method);
+        return previous;
+    }
+
+    static void exit(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
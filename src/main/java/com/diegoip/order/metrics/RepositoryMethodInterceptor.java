@@ -0,0 +1,51 @@
+package com.diegoip.order.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Interceptor que se agrega al proxy de cada repositorio de Spring Data y publica en
+ * {@link RepositoryMethodContext} el método invocado durante la llamada. Si hay un
+ * {@link MongoCircuitBreaker}, la llamada pasa además por él.
+ */
+public class RepositoryMethodInterceptor implements MethodInterceptor {
+
+    private final String repositoryName;
+    private final MongoCircuitBreaker circuitBreaker;
+    private final Map<Method, String> methodNames = new ConcurrentHashMap<>();
+
+    public RepositoryMethodInterceptor(Class<?> repositoryInterface) {
+        this(repositoryInterface, null);
+    }
+
+    public RepositoryMethodInterceptor(Class<?> repositoryInterface, MongoCircuitBreaker circuitBreaker) {
+        this.repositoryName = repositoryInterface.getSimpleName();
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        String method = methodNames.computeIfAbsent(invocation.getMethod(),
+                m -> repositoryName + "." + m.getName());
+        if (circuitBreaker != null) {
+            circuitBreaker.acquire(method);
+        }
+        String previous = RepositoryMethodContext.enter(method);
+        Throwable failure = null;
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            RepositoryMethodContext.exit(previous);
+            if (circuitBreaker != null) {
+                circuitBreaker.record(failure);
+            }
+        }
+    }
+}
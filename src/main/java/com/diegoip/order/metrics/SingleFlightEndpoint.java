@@ -0,0 +1,55 @@
+package com.diegoip.order.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import com.diegoip.order.service.SingleFlight;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Endpoint de actuator ({@code /actuator/singleflight}) con las lecturas ejecutadas y agrupadas por cada
+ * {@link SingleFlight}, y las claves con más llamadas agrupadas (las sensibles, por su huella y ofuscadas). Los conteos son acumulados
+ * desde el arranque; el DELETE reinicia solo el detalle por clave.
+ */
+@Endpoint(id = "singleflight")
+@RequiredArgsConstructor
+public class SingleFlightEndpoint {
+
+    private static final int TOP_KEYS = 20;
+
+    private final List<SingleFlight<?, ?>> flights;
+
+    @ReadOperation
+    public Map<String, FlightStats> singleFlight() {
+        Map<String, FlightStats> result = new TreeMap<>();
+        for (SingleFlight<?, ?> flight : flights) {
+            long executed = flight.getExecuted();
+            long coalesced = flight.getCoalesced();
+            long calls = executed + coalesced;
+            result.put(flight.getName(), new FlightStats(executed, coalesced,
+                    calls > 0 ? Math.round(coalesced * 10_000.0 / calls) / 100.0 : 0,
+                    flight.getInFlight(), flight.getTrackedKeys(), flight.topCoalescedKeys(TOP_KEYS)));
+        }
+        return result;
+    }
+
+    @DeleteOperation
+    public void clear() {
+        flights.forEach(SingleFlight::clearKeyStats);
+    }
+
+    public record FlightStats(
+            long executed,
+            long coalesced,
+            double coalescedPercent,
+            int inFlight,
+            int trackedKeys,
+            List<SingleFlight.KeyStats> topKeys) {
+    }
+}
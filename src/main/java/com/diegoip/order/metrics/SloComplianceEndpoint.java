@@ -0,0 +1,108 @@
+package com.diegoip.order.metrics;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import com.diegoip.order.config.HttpSloMetricsConfig;
+import com.diegoip.order.config.SloProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Endpoint de actuator ({@code /actuator/slo}) con el cumplimiento actual del SLO de latencia por ruta.
+ * Un request cumple si respondió sin error 5xx y dentro de la latencia objetivo. Los conteos son
+ * acumulados desde el arranque y salen de los contadores de {@link HttpSloObservationHandler}; los
+ * percentiles corresponden a la ventana reciente del timer (el mayor entre las series de status de la ruta).
+ */
+@Endpoint(id = "slo")
+@RequiredArgsConstructor
+public class SloComplianceEndpoint {
+
+    private final MeterRegistry registry;
+    private final SloProperties properties;
+
+    @ReadOperation
+    public Map<String, RouteCompliance> compliance() {
+        Map<String, Accumulator> routes = new TreeMap<>();
+
+        for (Counter counter : registry.find(HttpSloObservationHandler.HTTP_SERVER_REQUESTS_SLO).counters()) {
+            String route = counter.getId().getTag("method") + " " + counter.getId().getTag("uri");
+            boolean within = HttpSloObservationHandler.RESULT_WITHIN.equals(counter.getId().getTag("result"));
+            accumulator(routes, route).addCount((long) counter.count(), within);
+        }
+        for (Timer timer : registry.find(HttpSloMetricsConfig.HTTP_SERVER_REQUESTS).timers()) {
+            String uri = timer.getId().getTag("uri");
+            if (!HttpSloMetricsConfig.isApiRoute(uri)) {
+                continue;
+            }
+            String route = timer.getId().getTag("method") + " " + uri;
+            accumulator(routes, route).addPercentiles(timer.takeSnapshot());
+        }
+
+        Map<String, RouteCompliance> result = new LinkedHashMap<>();
+        routes.forEach((route, acc) -> result.put(route, acc.toCompliance(properties.targetFor(route))));
+        return result;
+    }
+
+    private Accumulator accumulator(Map<String, Accumulator> routes, String route) {
+        return routes.computeIfAbsent(route, r -> new Accumulator(properties.objectiveFor(r)));
+    }
+
+    public record RouteCompliance(
+            double objectiveMs,
+            double target,
+            long requests,
+            long withinObjective,
+            double compliance,
+            boolean meetsTarget,
+            Map<String, Double> percentilesMs) {
+    }
+
+    private static final class Accumulator {
+
+        private final Duration objective;
+        private long total;
+        private long good;
+        private final Map<String, Double> percentiles = new HashMap<>();
+
+        private Accumulator(Duration objective) {
+            this.objective = objective;
+        }
+
+        private void addCount(long count, boolean within) {
+            total += count;
+            if (within) {
+                good += count;
+            }
+        }
+
+        private void addPercentiles(HistogramSnapshot snapshot) {
+            for (ValueAtPercentile value : snapshot.percentileValues()) {
+                percentiles.merge("p" + percentileLabel(value.percentile()), value.value(TimeUnit.MILLISECONDS), Math::max);
+            }
+        }
+
+        private RouteCompliance toCompliance(double target) {
+            double compliance = total == 0 ? 1.0 : (double) good / total;
+            return new RouteCompliance(objective.toNanos() / 1_000_000.0, target, total, good, compliance,
+                    compliance >= target, new TreeMap<>(percentiles));
+        }
+
+        private static String percentileLabel(double percentile) {
+            return BigDecimal.valueOf(percentile).movePointRight(2).stripTrailingZeros().toPlainString().replace(".", "");
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.diegoip.order.metrics;
+
+import java.time.Instant;
+
+/**
+ * Comando MongoDB que superó el umbral de lentitud. El filtro se guarda sin valores
+ * (ver {@link MongoCommandRedactor}).
+ */
+public record SlowMongoCommand(
+        Instant timestamp,
+        String repositoryMethod,
+        String command,
+        String collection,
+        String filter,
+        double durationMs,
+        boolean failed) {
+}
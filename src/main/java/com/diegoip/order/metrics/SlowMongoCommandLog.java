@@ -0,0 +1,70 @@
+package com.diegoip.order.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Los N comandos más lentos desde el arranque (o desde el último {@link #clear()}), en un montículo de
+ * mínimos acotado: un comando nuevo solo entra si es más lento que el más rápido guardado, al que
+ * reemplaza. Así una ráfaga de comandos apenas sobre el umbral no desplaza a un scan de colección de 30 s.
+ *
+ * Con el montículo lleno, los comandos que no superan al más rápido se descartan sin tomar el lock.
+ * La lectura devuelve una copia ordenada del más lento al más rápido.
+ */
+public class SlowMongoCommandLog {
+
+    private static final Comparator<SlowMongoCommand> BY_DURATION = Comparator.comparingDouble(SlowMongoCommand::durationMs);
+
+    private final int capacity;
+    private final PriorityQueue<SlowMongoCommand> heap;
+    private final LongAdder recorded = new LongAdder();
+
+    // Duración del más rápido guardado con el montículo lleno; -1 mientras haya lugar
+    private volatile double floorMs = -1;
+
+    public SlowMongoCommandLog(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.heap = new PriorityQueue<>(this.capacity + 1, BY_DURATION);
+    }
+
+    public void record(SlowMongoCommand command) {
+        recorded.increment();
+        if (command.durationMs() <= floorMs) {
+            return;
+        }
+        synchronized (heap) {
+            if (heap.size() < capacity) {
+                heap.add(command);
+            } else if (command.durationMs() > heap.peek().durationMs()) {
+                heap.poll();
+                heap.add(command);
+            }
+            if (heap.size() == capacity) {
+                floorMs = heap.peek().durationMs();
+            }
+        }
+    }
+
+    public List<SlowMongoCommand> slowest() {
+        List<SlowMongoCommand> result;
+        synchronized (heap) {
+            result = new ArrayList<>(heap);
+        }
+        result.sort(BY_DURATION.reversed());
+        return result;
+    }
+
+    public long totalRecorded() {
+        return recorded.sum();
+    }
+
+    public void clear() {
+        synchronized (heap) {
+            heap.clear();
+            floorMs = -1;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.diegoip.order.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Endpoint de actuator ({@code /actuator/mongoslow}) con los comandos MongoDB más lentos,
+ * ordenados del más lento al más rápido.
+ */
+@Endpoint(id = "mongoslow")
+@RequiredArgsConstructor
+public class SlowMongoCommandsEndpoint {
+
+    private final SlowMongoCommandLog slowCommandLog;
+
+    @ReadOperation
+    public Map<String, Object> slowCommands() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("totalRecorded", slowCommandLog.totalRecorded());
+        result.put("commands", slowCommandLog.slowest());
+        return result;
+    }
+
+    @DeleteOperation
+    public void clear() {
+        slowCommandLog.clear();
+    }
+}
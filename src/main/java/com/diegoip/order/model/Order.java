@@ -6,6 +6,9 @@ import java.util.List;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import com.diegoip.order.util.Sensitive;
+import com.diegoip.order.util.SensitiveType;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -21,6 +24,7 @@ public class Order {
     
     private String numeroPedido;
     
+    @Sensitive(SensitiveType.DNI)
     private String dni;
     
     private List<OrderItem> items;
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.diegoip.order.model.Product;
@@ -14,4 +15,8 @@ public interface ProductRepository extends MongoRepository<Product, String> {
     Optional<Product> findBySku(String sku);
     
     List<Product> findByCategoria(String categoria);
+    
+    // Igual que findAll, pero con su propio plazo en app.mongodb.deadlines: lo usa solo la carga del índice
+    @Query("{}")
+    List<Product> findAllForSearchIndex();
 }
@@ -5,8 +5,11 @@ import java.util.Optional;
 
 import org.springframework.stereotype.Service;
 
+import com.diegoip.order.config.RequestLogContext;
 import com.diegoip.order.model.Order;
 import com.diegoip.order.repository.OrderRepository;
+import com.diegoip.order.util.SensitiveType;
+import com.diegoip.order.util.SensitiveValue;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -17,52 +20,59 @@ import lombok.extern.slf4j.Slf4j;
 public class OrderService {
     
     private final OrderRepository orderRepository;
+    private final SingleFlight<String, List<Order>> ordersByDniFlight;
     
     public List<Order> getAllOrders() {
-        log.info("Obteniendo todos los pedidos");
+        log.debug("Obteniendo todos los pedidos");
         List<Order> orders = orderRepository.findAll();
-        log.info("Se encontraron {} pedidos", orders.size());
+        RequestLogContext.put("orders", orders.size());
+        log.debug("Se encontraron {} pedidos", orders.size());
         return orders;
     }
     
     public Optional<Order> getOrderById(String id) {
-        log.info("Buscando pedido por ID: {}", id);
+        log.debug("Buscando pedido por ID: {}", id);
         Optional<Order> order = orderRepository.findById(id);
+        RequestLogContext.put("found", order.isPresent());
         if (order.isPresent()) {
-            log.info("Pedido encontrado: {}", order.get().getNumeroPedido());
+            log.debug("Pedido encontrado: {}", SensitiveValue.of(SensitiveType.GENERIC, order.get().getNumeroPedido()));
         } else {
-            log.warn("Pedido no encontrado con ID: {}", id);
+            log.debug("Pedido no encontrado con ID: {}", id);
         }
         return order;
     }
     
     public List<Order> getOrdersByDni(String dni) {
-        log.info("Buscando pedidos por DNI: {}", dni);
-        List<Order> orders = orderRepository.findByDni(dni);
-        log.info("Se encontraron {} pedidos para el DNI: {}", orders.size(), dni);
+        log.debug("Buscando pedidos por DNI: {}", SensitiveValue.dni(dni));
+        // Los reintentos simultáneos para el mismo DNI comparten una sola consulta
+        List<Order> orders = ordersByDniFlight.execute(dni, () -> orderRepository.findByDni(dni));
+        RequestLogContext.put("orders", orders.size());
+        log.debug("Se encontraron {} pedidos para el DNI: {}", orders.size(), SensitiveValue.dni(dni));
         return orders;
     }
     
     public Optional<Order> getOrderByNumeroPedido(String numeroPedido) {
-        log.info("Buscando pedido por número: {}", numeroPedido);
+        log.debug("Buscando pedido por número: {}", SensitiveValue.of(SensitiveType.GENERIC, numeroPedido));
         Optional<Order> order = orderRepository.findByNumeroPedido(numeroPedido);
+        RequestLogContext.put("found", order.isPresent());
         if (order.isPresent()) {
-            log.info("Pedido encontrado para número: {}", numeroPedido);
+            log.debug("Pedido encontrado para número: {}", SensitiveValue.of(SensitiveType.GENERIC, numeroPedido));
         } else {
-            log.warn("Pedido no encontrado con número: {}", numeroPedido);
+            log.debug("Pedido no encontrado con número: {}", SensitiveValue.of(SensitiveType.GENERIC, numeroPedido));
         }
         return order;
     }
     
     public Order createOrder(Order order) {
-        log.info("Creando nuevo pedido para DNI: {}", order.getDni());
+        log.debug("Creando nuevo pedido para DNI: {}", SensitiveValue.dni(order.getDni()));
         Order savedOrder = orderRepository.save(order);
-        log.info("Pedido creado exitosamente con número: {}", savedOrder.getNumeroPedido());
+        RequestLogContext.put("numeroPedido", SensitiveValue.of(SensitiveType.GENERIC, savedOrder.getNumeroPedido()));
+        log.debug("Pedido creado exitosamente con número: {}", SensitiveValue.of(SensitiveType.GENERIC, savedOrder.getNumeroPedido()));
         return savedOrder;
     }
     
     public Optional<Order> updateOrder(String id, Order orderDetails) {
-        log.info("Actualizando pedido con ID: {}", id);
+        log.debug("Actualizando pedido con ID: {}", id);
         Optional<Order> updated = orderRepository.findById(id)
                 .map(order -> {
                     order.setNumeroPedido(orderDetails.getNumeroPedido());
@@ -72,23 +82,24 @@ public class OrderService {
                     order.setEstado(orderDetails.getEstado());
                     order.setTotal(orderDetails.getTotal());
                     Order savedOrder = orderRepository.save(order);
-                    log.info("Pedido actualizado exitosamente: {}", savedOrder.getNumeroPedido());
+                    log.debug("Pedido actualizado exitosamente: {}", SensitiveValue.of(SensitiveType.GENERIC, savedOrder.getNumeroPedido()));
                     return savedOrder;
                 });
+        RequestLogContext.put("found", updated.isPresent());
         if (updated.isEmpty()) {
-            log.warn("No se pudo actualizar, pedido no encontrado con ID: {}", id);
+            log.debug("No se pudo actualizar, pedido no encontrado con ID: {}", id);
         }
         return updated;
     }
     
     public boolean deleteOrder(String id) {
-        log.info("Intentando eliminar pedido con ID: {}", id);
+        log.debug("Intentando eliminar pedido con ID: {}", id);
         if (orderRepository.existsById(id)) {
             orderRepository.deleteById(id);
-            log.info("Pedido eliminado exitosamente con ID: {}", id);
+            log.debug("Pedido eliminado exitosamente con ID: {}", id);
             return true;
         }
-        log.warn("No se pudo eliminar, pedido no encontrado con ID: {}", id);
+        log.debug("No se pudo eliminar, pedido no encontrado con ID: {}", id);
         return false;
     }
 }
@@ -0,0 +1,446 @@
+package com.diegoip.order.service;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.diegoip.order.model.Product;
+import com.diegoip.order.repository.ProductRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Índice en memoria sobre el nombre y el SKU de los productos.
+ * Combina un índice ordenado de tokens (búsqueda por prefijo) con un índice de trigramas
+ * (búsqueda aproximada ante errores de tipeo). Se carga al iniciar la aplicación y se
+ * actualiza de forma incremental en cada alta, modificación o baja de producto.
+ *
+ * Si MongoDB no responde al arrancar, la carga se reintenta con espera exponencial; mientras tanto
+ * {@link #search} lanza {@link SearchIndexNotReadyException}. Una recarga arma una generación nueva
+ * y la reemplaza de una vez: las altas y bajas que llegan mientras se lee MongoDB se aplican también
+ * sobre la generación nueva antes del reemplazo, para no perderlas.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+
+    private static final int GRAM_SIZE = 3;
+    private static final int MAX_CANDIDATES = 256;
+    private static final double MIN_FUZZY_SCORE = 0.6;
+
+    private static final double SCORE_SKU_EXACT = 10.0;
+    private static final double SCORE_SKU_PREFIX = 5.0;
+    private static final double SCORE_PREFIX = 2.0;
+
+    private static final Duration INITIAL_RETRY_DELAY = Duration.ofSeconds(1);
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(1);
+
+    private final ProductRepository productRepository;
+
+    private volatile Generation current = new Generation();
+    private volatile boolean ready;
+
+    // Cambios recibidos durante una recarga, por ID (null = baja); se aplican sobre la generación nueva
+    private Map<String, Product> pendingChanges;
+    private final Object reloadLock = new Object();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        // La carga inicial no debe bloquear el arranque ni fallar si MongoDB aún no responde
+        Thread.ofPlatform().daemon().name("product-search-index-loader").start(this::loadWithRetry);
+    }
+
+    private void loadWithRetry() {
+        Duration delay = INITIAL_RETRY_DELAY;
+        while (!reload()) {
+            log.info("Se reintenta la carga del índice de búsqueda de productos en {} s", delay.toSeconds());
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            Duration doubled = delay.multipliedBy(2);
+            delay = doubled.compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : doubled;
+        }
+    }
+
+    /**
+     * Reconstruye el índice desde MongoDB. Devuelve false si no se pudo leer; el índice anterior se conserva.
+     */
+    public boolean reload() {
+        synchronized (reloadLock) {
+            return rebuild();
+        }
+    }
+
+    private boolean rebuild() {
+        synchronized (this) {
+            pendingChanges = new LinkedHashMap<>();
+        }
+        try {
+            List<Product> products = productRepository.findAllForSearchIndex();
+            Generation next = new Generation();
+            products.forEach(next::add);
+            synchronized (this) {
+                pendingChanges.forEach((id, product) -> next.replace(id, product));
+                current = next;
+            }
+            ready = true;
+            log.info("Índice de búsqueda de productos cargado con {} productos", next.entries.size());
+            return true;
+        } catch (Exception e) {
+            log.warn("No se pudo cargar el índice de búsqueda de productos: {}", e.getMessage());
+            return false;
+        } finally {
+            synchronized (this) {
+                pendingChanges = null;
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return current.entries.size();
+    }
+
+    public synchronized void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        current.replace(product.getId(), product);
+        if (pendingChanges != null) {
+            pendingChanges.put(product.getId(), copyOf(product));
+        }
+    }
+
+    public synchronized void remove(String id) {
+        current.replace(id, null);
+        if (pendingChanges != null) {
+            pendingChanges.put(id, null);
+        }
+    }
+
+    /**
+     * Busca productos cuyo nombre o SKU coincida con la consulta.
+     * Orden de relevancia: SKU exacto, prefijo de SKU, prefijo de todos los términos del nombre
+     * y, si no se completa el límite, coincidencia aproximada por trigramas.
+     *
+     * @throws SearchIndexNotReadyException si el índice todavía no se pudo cargar
+     */
+    public List<Product> search(String query, int limit) {
+        if (!ready) {
+            throw new SearchIndexNotReadyException();
+        }
+        Generation index = current;
+        String normalized = normalize(query).trim();
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Map<String, Double> scores = new HashMap<>();
+        matchSku(index, normalized, scores);
+
+        List<String> queryTokens = tokenize(normalized);
+        matchPrefixes(index, queryTokens, scores);
+
+        if (scores.size() < limit) {
+            matchFuzzy(index, queryTokens, scores);
+        }
+
+        return rank(index, scores, limit);
+    }
+
+    // ========== Búsqueda ==========
+
+    private static void matchSku(Generation index, String query, Map<String, Double> scores) {
+        String exactId = index.skus.get(query);
+        if (exactId != null) {
+            scores.put(exactId, SCORE_SKU_EXACT);
+        }
+
+        int budget = MAX_CANDIDATES;
+        for (Map.Entry<String, Set<String>> posting : index.prefixRange(query).entrySet()) {
+            for (String id : posting.getValue()) {
+                if (--budget < 0) {
+                    return;
+                }
+                Entry entry = index.entries.get(id);
+                if (entry != null && entry.sku().startsWith(query)) {
+                    scores.merge(id, SCORE_SKU_PREFIX, Math::max);
+                }
+            }
+        }
+    }
+
+    private static void matchPrefixes(Generation index, List<String> queryTokens, Map<String, Double> scores) {
+        if (queryTokens.isEmpty()) {
+            return;
+        }
+
+        // El término más largo suele ser el más selectivo: genera los candidatos y el resto se verifica
+        String driver = queryTokens.get(0);
+        for (String token : queryTokens) {
+            if (token.length() > driver.length()) {
+                driver = token;
+            }
+        }
+
+        int budget = MAX_CANDIDATES;
+        for (Map.Entry<String, Set<String>> posting : index.prefixRange(driver).entrySet()) {
+            for (String id : posting.getValue()) {
+                if (--budget < 0) {
+                    return;
+                }
+                Entry entry = index.entries.get(id);
+                if (entry == null) {
+                    continue;
+                }
+                double closeness = prefixCloseness(entry, queryTokens);
+                if (closeness > 0) {
+                    scores.merge(id, SCORE_PREFIX + closeness, Math::max);
+                }
+            }
+        }
+    }
+
+    /**
+     * Promedio, sobre los términos de la consulta, de la cercanía con el token del producto
+     * que los contiene como prefijo. Devuelve 0 si algún término no coincide.
+     */
+    private static double prefixCloseness(Entry entry, List<String> queryTokens) {
+        double total = 0;
+        for (String queryToken : queryTokens) {
+            double best = 0;
+            for (String token : entry.tokens()) {
+                if (token.startsWith(queryToken)) {
+                    best = Math.max(best, (double) queryToken.length() / token.length());
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total / queryTokens.size();
+    }
+
+    private static void matchFuzzy(Generation index, List<String> queryTokens, Map<String, Double> scores) {
+        Set<String> queryGrams = new LinkedHashSet<>();
+        queryTokens.forEach(token -> addGrams(token, queryGrams));
+        if (queryGrams.isEmpty()) {
+            return;
+        }
+
+        List<Set<String>> postings = new ArrayList<>(queryGrams.size());
+        for (String gram : queryGrams) {
+            postings.add(index.grams.getOrDefault(gram, Set.of()));
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        // Un producto que alcance el umbral contiene al menos uno de los trigramas más raros
+        int required = (int) Math.ceil(MIN_FUZZY_SCORE * queryGrams.size());
+        int generators = queryGrams.size() - required + 1;
+
+        Set<String> candidates = new LinkedHashSet<>();
+        for (int i = 0; i < generators && candidates.size() < MAX_CANDIDATES; i++) {
+            for (String id : postings.get(i)) {
+                candidates.add(id);
+                if (candidates.size() >= MAX_CANDIDATES) {
+                    break;
+                }
+            }
+        }
+
+        for (String id : candidates) {
+            Entry entry = index.entries.get(id);
+            if (entry == null || scores.containsKey(id)) {
+                continue;
+            }
+            int hits = 0;
+            for (String gram : queryGrams) {
+                if (entry.grams().contains(gram)) {
+                    hits++;
+                }
+            }
+            // Proporción de trigramas de la consulta presentes en el producto
+            double containment = (double) hits / queryGrams.size();
+            if (containment >= MIN_FUZZY_SCORE) {
+                scores.put(id, containment);
+            }
+        }
+    }
+
+    private static List<Product> rank(Generation index, Map<String, Double> scores, int limit) {
+        Comparator<Scored> byRelevance = Comparator.comparingDouble(Scored::score).reversed()
+                .thenComparingInt(scored -> scored.entry().nombre().length())
+                .thenComparing(scored -> scored.entry().nombre());
+
+        // Montículo acotado al límite: conserva los mejores sin ordenar todos los candidatos
+        PriorityQueue<Scored> top = new PriorityQueue<>(limit + 1, byRelevance.reversed());
+        scores.forEach((id, score) -> {
+            Entry entry = index.entries.get(id);
+            if (entry != null) {
+                top.add(new Scored(entry, score));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        });
+
+        List<Scored> ranked = new ArrayList<>(top);
+        ranked.sort(byRelevance);
+        List<Product> result = new ArrayList<>(ranked.size());
+        ranked.forEach(scored -> result.add(copyOf(scored.entry().product())));
+        return result;
+    }
+
+    // ========== Normalización ==========
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            // Eliminar tildes y diéresis para que "teclado mecanico" encuentre "Teclado Mecánico"
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                sb.append(c);
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> tokenize(String normalized) {
+        if (normalized.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letterOrDigit = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letterOrDigit && start < 0) {
+                start = i;
+            } else if (!letterOrDigit && start >= 0) {
+                result.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return result;
+    }
+
+    private static void addGrams(String token, Set<String> target) {
+        if (token.length() < GRAM_SIZE) {
+            return;
+        }
+        for (int i = 0; i + GRAM_SIZE <= token.length(); i++) {
+            target.add(token.substring(i, i + GRAM_SIZE));
+        }
+    }
+
+    private static Product copyOf(Product product) {
+        return new Product(product.getId(), product.getSku(), product.getStock(),
+                product.getNombre(), product.getCategoria());
+    }
+
+    /**
+     * Estructuras de una versión del índice. Se modifica bajo el lock de {@link ProductSearchIndex}; las
+     * búsquedas la leen sin lock.
+     */
+    private static final class Generation {
+
+        private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+        private final Map<String, String> skus = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<String, Set<String>> tokens = new ConcurrentSkipListMap<>();
+        private final Map<String, Set<String>> grams = new ConcurrentHashMap<>();
+
+        private Map<String, Set<String>> prefixRange(String prefix) {
+            return tokens.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        }
+
+        /**
+         * Reemplaza el producto con ese ID; null lo quita.
+         */
+        private void replace(String id, Product product) {
+            removeEntry(id);
+            if (product != null) {
+                add(product);
+            }
+        }
+
+        private void add(Product product) {
+            if (product.getId() == null) {
+                return;
+            }
+            String sku = normalize(product.getSku());
+            String nombre = normalize(product.getNombre());
+
+            Set<String> entryTokens = new LinkedHashSet<>(tokenize(nombre));
+            entryTokens.addAll(tokenize(sku));
+            if (!sku.isEmpty()) {
+                entryTokens.add(sku);
+            }
+
+            Set<String> entryGrams = new LinkedHashSet<>();
+            tokenize(nombre).forEach(token -> addGrams(token, entryGrams));
+            tokenize(sku).forEach(token -> addGrams(token, entryGrams));
+
+            Entry entry = new Entry(copyOf(product), sku, nombre, entryTokens, entryGrams);
+            entries.put(product.getId(), entry);
+            if (!sku.isEmpty()) {
+                skus.put(sku, product.getId());
+            }
+            entryTokens.forEach(token -> tokens.computeIfAbsent(token, k -> ConcurrentHashMap.newKeySet()).add(product.getId()));
+            entryGrams.forEach(gram -> grams.computeIfAbsent(gram, k -> ConcurrentHashMap.newKeySet()).add(product.getId()));
+        }
+
+        private void removeEntry(String id) {
+            Entry entry = entries.remove(id);
+            if (entry == null) {
+                return;
+            }
+            skus.remove(entry.sku(), id);
+            entry.tokens().forEach(token -> removePosting(tokens, token, id));
+            entry.grams().forEach(gram -> removePosting(grams, gram, id));
+        }
+
+        private static void removePosting(Map<String, Set<String>> index, String key, String id) {
+            Set<String> posting = index.get(key);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    index.remove(key, posting);
+                }
+            }
+        }
+    }
+
+    private record Entry(Product product, String sku, String nombre, Set<String> tokens, Set<String> grams) {
+    }
+
+    private record Scored(Entry entry, double score) {
+    }
+}
@@ -5,6 +5,7 @@ import java.util.Optional;
 
 import org.springframework.stereotype.Service;
 
+import com.diegoip.order.config.RequestLogContext;
 import com.diegoip.order.model.Product;
 import com.diegoip.order.repository.ProductRepository;
 
@@ -16,46 +17,63 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class ProductService {
     
+    private static final int MAX_SEARCH_LIMIT = 50;
+
     private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final SingleFlight<String, Optional<Product>> productBySkuFlight;
     
     public List<Product> getAllProducts() {
-        log.info("Obteniendo todos los productos");
+        log.debug("Obteniendo todos los productos");
         List<Product> products = productRepository.findAll();
-        log.info("Se encontraron {} productos", products.size());
+        RequestLogContext.put("products", products.size());
+        log.debug("Se encontraron {} productos", products.size());
         return products;
     }
     
     public Optional<Product> getProductById(String id) {
-        log.info("Buscando producto por ID: {}", id);
+        log.debug("Buscando producto por ID: {}", id);
         Optional<Product> product = productRepository.findById(id);
+        RequestLogContext.put("found", product.isPresent());
         if (product.isPresent()) {
-            log.info("Producto encontrado: {}", product.get().getNombre());
+            log.debug("Producto encontrado: {}", product.get().getNombre());
         } else {
-            log.warn("Producto no encontrado con ID: {}", id);
+            log.debug("Producto no encontrado con ID: {}", id);
         }
         return product;
     }
     
     public Optional<Product> getProductBySku(String sku) {
-        log.info("Buscando producto por SKU: {}", sku);
-        Optional<Product> product = productRepository.findBySku(sku);
+        log.debug("Buscando producto por SKU: {}", sku);
+        // Las búsquedas simultáneas del mismo SKU comparten una sola consulta
+        Optional<Product> product = productBySkuFlight.execute(sku, () -> productRepository.findBySku(sku));
+        RequestLogContext.put("found", product.isPresent());
         if (product.isPresent()) {
-            log.info("Producto encontrado: {}", product.get().getNombre());
+            log.debug("Producto encontrado: {}", product.get().getNombre());
         } else {
-            log.warn("Producto no encontrado con SKU: {}", sku);
+            log.debug("Producto no encontrado con SKU: {}", sku);
         }
         return product;
     }
     
     public List<Product> getProductsByCategoria(String categoria) {
-        log.info("Buscando productos por categoría: {}", categoria);
+        log.debug("Buscando productos por categoría: {}", categoria);
         List<Product> products = productRepository.findByCategoria(categoria);
-        log.info("Se encontraron {} productos en la categoría {}", products.size(), categoria);
+        RequestLogContext.put("products", products.size());
+        log.debug("Se encontraron {} productos en la categoría {}", products.size(), categoria);
+        return products;
+    }
+    
+    public List<Product> searchProducts(String query, int limit) {
+        int effectiveLimit = Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+        List<Product> products = productSearchIndex.search(query, effectiveLimit);
+        RequestLogContext.put("results", products.size());
+        log.debug("Búsqueda de productos por texto devolvió {} resultados", products.size());
         return products;
     }
     
     public Product createProduct(Product product) {
-        log.info("Creando nuevo producto: {}", product.getNombre());
+        log.debug("Creando nuevo producto: {}", product.getNombre());
 
         // Validar que el SKU no exista
         if (product.getSku() != null && !product.getSku().isEmpty()) {
@@ -70,12 +88,14 @@ public class ProductService {
         }
 
         Product savedProduct = productRepository.save(product);
-        log.info("Producto creado exitosamente con ID: {} y SKU: {}", savedProduct.getId(), savedProduct.getSku());
+        productSearchIndex.index(savedProduct);
+        RequestLogContext.put("sku", savedProduct.getSku());
+        log.debug("Producto creado exitosamente con ID: {} y SKU: {}", savedProduct.getId(), savedProduct.getSku());
         return savedProduct;
     }
     
     public Optional<Product> updateProduct(String id, Product productDetails) {
-        log.info("Actualizando producto con ID: {}", id);
+        log.debug("Actualizando producto con ID: {}", id);
 
         // Validar que el SKU no esté siendo usado por otro producto
         if (productDetails.getSku() != null && !productDetails.getSku().isEmpty()) {
@@ -93,23 +113,26 @@ public class ProductService {
                     product.setNombre(productDetails.getNombre());
                     product.setCategoria(productDetails.getCategoria());
                     Product savedProduct = productRepository.save(product);
-                    log.info("Producto actualizado exitosamente: {} con SKU: {}", savedProduct.getNombre(), savedProduct.getSku());
+                    productSearchIndex.index(savedProduct);
+                    log.debug("Producto actualizado exitosamente: {} con SKU: {}", savedProduct.getNombre(), savedProduct.getSku());
                     return savedProduct;
                 });
+        RequestLogContext.put("found", updated.isPresent());
         if (updated.isEmpty()) {
-            log.warn("No se pudo actualizar, producto no encontrado con ID: {}", id);
+            log.debug("No se pudo actualizar, producto no encontrado con ID: {}", id);
         }
         return updated;
     }
     
     public boolean deleteProduct(String id) {
-        log.info("Intentando eliminar producto con ID: {}", id);
+        log.debug("Intentando eliminar producto con ID: {}", id);
         if (productRepository.existsById(id)) {
             productRepository.deleteById(id);
-            log.info("Producto eliminado exitosamente con ID: {}", id);
+            productSearchIndex.remove(id);
+            log.debug("Producto eliminado exitosamente con ID: {}", id);
             return true;
         }
-        log.warn("No se pudo eliminar, producto no encontrado con ID: {}", id);
+        log.debug("No se pudo eliminar, producto no encontrado con ID: {}", id);
         return false;
     }
 }
@@ -0,0 +1,16 @@
+package com.diegoip.order.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Búsqueda rechazada porque el {@link ProductSearchIndex} todavía no se pudo cargar desde MongoDB.
+ * Se responde 503 en lugar de una lista vacía: el cliente puede reintentar.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SearchIndexNotReadyException extends RuntimeException {
+
+    public SearchIndexNotReadyException() {
+        super("El índice de búsqueda de productos todavía no está cargado");
+    }
+}
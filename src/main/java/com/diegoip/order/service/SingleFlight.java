@@ -0,0 +1,188 @@
+package com.diegoip.order.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.diegoip.order.config.RequestLogContext;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Agrupa las lecturas concurrentes de una misma clave: mientras una consulta está en curso, las llamadas
+ * con la misma clave esperan su resultado en lugar de repetirla contra MongoDB.
+ *
+ * No es un caché: la clave se libera apenas termina la consulta, así que una llamada posterior siempre
+ * vuelve a leer. Si la consulta falla, todas las llamadas que la esperaban reciben la misma excepción.
+ * El resultado se comparte entre los hilos, por lo que no debe modificarse.
+ *
+ * Publica {@code singleflight.calls} por {@code result} ({@code executed} o {@code coalesced}) y
+ * {@code singleflight.inflight}, y lleva un conteo por clave acotado a {@code maxTrackedKeys}; las claves
+ * nuevas que exceden el límite se suman a {@code (other)}. El conteo se agrupa por {@code keyId}, que debe
+ * distinguir las claves sin exponerlas (por ejemplo, {@link com.diegoip.order.util.SensitiveDigest}), y se
+ * muestra con {@code keyLabel}, que puede ser ambiguo (un dato ofuscado).
+ */
+public class SingleFlight<K, V> {
+
+    public static final String CALLS = "singleflight.calls";
+    public static final String IN_FLIGHT = "singleflight.inflight";
+
+    private static final String OTHER_KEY = "(other)";
+
+    private final String name;
+    private final Function<K, String> keyId;
+    private final Function<K, String> keyLabel;
+    private final int maxTrackedKeys;
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, KeyTally> tallies = new ConcurrentHashMap<>();
+    private final AtomicInteger trackedKeys = new AtomicInteger();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public SingleFlight(String name, Function<K, String> keyId, Function<K, String> keyLabel, int maxTrackedKeys,
+                        MeterRegistry registry) {
+        this.name = name;
+        this.keyId = keyId;
+        this.keyLabel = keyLabel;
+        this.maxTrackedKeys = Math.max(1, maxTrackedKeys);
+
+        FunctionCounter.builder(CALLS, executed, LongAdder::sum)
+                .description("Lecturas ejecutadas contra MongoDB")
+                .tag("name", name)
+                .tag("result", "executed")
+                .register(registry);
+        FunctionCounter.builder(CALLS, coalesced, LongAdder::sum)
+                .description("Lecturas que esperaron una consulta en curso con la misma clave")
+                .tag("name", name)
+                .tag("result", "coalesced")
+                .register(registry);
+        Gauge.builder(IN_FLIGHT, inFlight, Map::size)
+                .description("Consultas en curso")
+                .tag("name", name)
+                .register(registry);
+    }
+
+    /**
+     * Devuelve el resultado de la consulta en curso para {@code key} o, si no hay ninguna, ejecuta
+     * {@code loader} en el hilo actual y lo comparte con las llamadas que lleguen mientras tanto.
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        KeyTally tally = tally(key);
+        if (existing != null) {
+            coalesced.increment();
+            tally.coalesced.increment();
+            RequestLogContext.put("singleflight", "coalesced");
+            return await(existing);
+        }
+
+        executed.increment();
+        tally.executed.increment();
+        try {
+            V value = loader.get();
+            created.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // Misma excepción que recibió la llamada que ejecutó la consulta
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private KeyTally tally(K key) {
+        String id = keyId.apply(key);
+        KeyTally tally = tallies.get(id);
+        if (tally != null) {
+            return tally;
+        }
+        if (trackedKeys.get() >= maxTrackedKeys) {
+            return tallies.computeIfAbsent(OTHER_KEY, k -> {
+                trackedKeys.incrementAndGet();
+                return new KeyTally(OTHER_KEY);
+            });
+        }
+        return tallies.computeIfAbsent(id, k -> {
+            trackedKeys.incrementAndGet();
+            return new KeyTally(keyLabel.apply(key));
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getExecuted() {
+        return executed.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    public int getTrackedKeys() {
+        return trackedKeys.get();
+    }
+
+    /**
+     * Las {@code limit} claves con más llamadas agrupadas.
+     */
+    public List<KeyStats> topCoalescedKeys(int limit) {
+        List<KeyStats> keys = new ArrayList<>(tallies.size());
+        tallies.forEach((key, tally) -> keys.add(
+                new KeyStats(key, tally.label, tally.executed.sum(), tally.coalesced.sum())));
+        keys.sort(Comparator.comparingLong(KeyStats::coalesced).reversed()
+                .thenComparing(Comparator.comparingLong(KeyStats::executed).reversed()));
+        return keys.size() > limit ? new ArrayList<>(keys.subList(0, limit)) : keys;
+    }
+
+    public void clearKeyStats() {
+        tallies.clear();
+        trackedKeys.set(0);
+    }
+
+    public record KeyStats(String key, String label, long executed, long coalesced) {
+    }
+
+    private static final class KeyTally {
+
+        private final String label;
+        private final LongAdder executed = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+
+        private KeyTally(String label) {
+            this.label = label;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.diegoip.order.util;
+
+/**
+ * Motor de ofuscación de datos personales compartido por todos los componentes de logging.
+ *
+ * Recorre el texto una sola vez: cada palabra formada solo por dígitos se clasifica por su longitud
+ * (8 = DNI, 9-10 = teléfono, 16 = tarjeta) y los emails se detectan al encontrar la '@'. Reproduce las
+ * reglas de los patrones que usaban los appenders ({@code \b\d{8}\b}, {@code \b\d{9,10}\b},
+ * {@code \b\d{16}\b} y el de email), con una diferencia: un email tiene prioridad sobre los dígitos que
+ * contenga, por lo que "12345678@mail.com" se ofusca como email completo.
+ *
+ * Si el texto no contiene datos sensibles se devuelve la misma instancia sin copiarla; si los contiene,
+ * el resultado se arma en un buffer reutilizable por hilo.
+ */
+public final class LogMaskingEngine {
+
+    public static final String MASK = "***";
+
+    private static final int MAX_REUSABLE_CAPACITY = 16 * 1024;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private LogMaskingEngine() {
+    }
+
+    public enum Kind { DNI, PHONE, CARD, EMAIL }
+
+    /**
+     * Coincidencia encontrada por {@link #find}. La versión ofuscada es: los primeros {@code keepHead}
+     * caracteres desde {@code start}, luego {@link #MASK}, luego el texto entre {@code tailFrom} y {@code end}.
+     */
+    public static final class Match {
+        private Kind kind;
+        private int start;
+        private int end;
+        private int keepHead;
+        private int tailFrom;
+
+        public Kind kind() {
+            return kind;
+        }
+
+        public int start() {
+            return start;
+        }
+
+        public int end() {
+            return end;
+        }
+
+        public int keepHead() {
+            return keepHead;
+        }
+
+        public int tailFrom() {
+            return tailFrom;
+        }
+
+        private boolean set(Kind kind, int start, int end, int keepHead, int tailFrom) {
+            this.kind = kind;
+            this.start = start;
+            this.end = end;
+            this.keepHead = keepHead;
+            this.tailFrom = tailFrom;
+            return true;
+        }
+    }
+
+    /**
+     * Devuelve el texto ofuscado, o la misma instancia si no contiene datos sensibles.
+     */
+    public static String mask(String message) {
+        if (message == null) {
+            return null;
+        }
+        Scratch scratch = SCRATCH.get();
+        Match match = scratch.match;
+        if (!find(message, 0, match)) {
+            return message;
+        }
+
+        StringBuilder sb = scratch.buffer;
+        sb.setLength(0);
+        appendMaskedFrom(message, 0, match, sb);
+        String result = sb.toString();
+        scratch.release();
+        return result;
+    }
+
+    /**
+     * Agrega al destino el texto ofuscado. Devuelve {@code true} si se ofuscó algo.
+     */
+    public static boolean maskTo(CharSequence text, StringBuilder target) {
+        if (text == null) {
+            return false;
+        }
+        Match match = SCRATCH.get().match;
+        if (!find(text, 0, match)) {
+            target.append(text);
+            return false;
+        }
+        appendMaskedFrom(text, 0, match, target);
+        return true;
+    }
+
+    public static boolean containsSensitiveData(CharSequence text) {
+        return text != null && find(text, 0, SCRATCH.get().match);
+    }
+
+    /**
+     * Busca el siguiente dato sensible a partir de {@code from}. Las coincidencias siempre terminan
+     * en un límite de palabra, por lo que se puede continuar la búsqueda desde {@code match.end()}.
+     */
+    public static boolean find(CharSequence s, int from, Match match) {
+        int n = s.length();
+        int i = from;
+        while (i < n) {
+            if (!isLocalChar(s.charAt(i))) {
+                i++;
+                continue;
+            }
+            // Tramo de caracteres válidos en la parte local de un email: [i, j)
+            int j = i + 1;
+            while (j < n && isLocalChar(s.charAt(j))) {
+                j++;
+            }
+            if (j < n && s.charAt(j) == '@' && matchEmail(s, i, j, match)) {
+                return true;
+            }
+            if (matchDigitWord(s, i, j, match)) {
+                return true;
+            }
+            i = j;
+        }
+        return false;
+    }
+
+    public static void appendMasked(CharSequence s, Match match, StringBuilder target) {
+        target.append(s, match.start, match.start + match.keepHead)
+                .append(MASK)
+                .append(s, match.tailFrom, match.end);
+    }
+
+    private static void appendMaskedFrom(CharSequence s, int from, Match match, StringBuilder target) {
+        int last = from;
+        do {
+            target.append(s, last, match.start);
+            appendMasked(s, match, target);
+            last = match.end;
+        } while (find(s, last, match));
+        target.append(s, last, s.length());
+    }
+
+    private static boolean matchDigitWord(CharSequence s, int from, int to, Match match) {
+        int k = from;
+        while (k < to) {
+            if (!isWordChar(s.charAt(k))) {
+                k++;
+                continue;
+            }
+            // Palabra completa [k, e): equivale a \b...\b en las expresiones regulares originales
+            int e = k;
+            boolean digitsOnly = true;
+            while (e < to && isWordChar(s.charAt(e))) {
+                digitsOnly &= isDigit(s.charAt(e));
+                e++;
+            }
+            if (digitsOnly) {
+                switch (e - k) {
+                    case 8:
+                        return match.set(Kind.DNI, k, e, 2, e - 2);
+                    case 9, 10:
+                        return match.set(Kind.PHONE, k, e, 0, e - 3);
+                    case 16:
+                        return match.set(Kind.CARD, k, e, 0, e - 4);
+                    default:
+                        break;
+                }
+            }
+            k = e;
+        }
+        return false;
+    }
+
+    private static boolean matchEmail(CharSequence s, int runStart, int at, Match match) {
+        int localStart = runStart;
+        while (localStart < at && !isWordChar(s.charAt(localStart))) {
+            localStart++;
+        }
+        if (localStart == at) {
+            return false;
+        }
+
+        int n = s.length();
+        int domainStart = at + 1;
+        int domainEnd = domainStart;
+        while (domainEnd < n && isDomainChar(s.charAt(domainEnd))) {
+            domainEnd++;
+        }
+
+        // El dominio termina en ".<al menos dos letras>" seguido de un límite de palabra
+        for (int dot = domainEnd - 1; dot > domainStart; dot--) {
+            if (s.charAt(dot) != '.') {
+                continue;
+            }
+            int end = dot + 1;
+            while (end < domainEnd && isAsciiLetter(s.charAt(end))) {
+                end++;
+            }
+            if (end - dot - 1 >= 2 && (end == n || !isWordChar(s.charAt(end)))) {
+                int keepHead = at - localStart <= 2 ? 0 : 1;
+                return match.set(Kind.EMAIL, localStart, end, keepHead, at);
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isWordChar(char c) {
+        return isAsciiLetter(c) || isDigit(c) || c == '_';
+    }
+
+    private static boolean isLocalChar(char c) {
+        return isWordChar(c) || c == '.' || c == '%' || c == '+' || c == '-';
+    }
+
+    private static boolean isDomainChar(char c) {
+        return isAsciiLetter(c) || isDigit(c) || c == '.' || c == '-';
+    }
+
+    private static final class Scratch {
+        private final Match match = new Match();
+        private StringBuilder buffer = new StringBuilder(256);
+
+        private void release() {
+            // Evitar retener buffers muy grandes después de un mensaje excepcional
+            if (buffer.capacity() > MAX_REUSABLE_CAPACITY) {
+                buffer = new StringBuilder(256);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.diegoip.order.util;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca un campo o parámetro que contiene un dato personal.
+ *
+ * Los campos anotados se ofuscan según su tipo cuando el objeto que los contiene se pasa como
+ * argumento de un log, sin depender de que el valor tenga un formato reconocible.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+public @interface Sensitive {
+
+    SensitiveType value() default SensitiveType.GENERIC;
+}
@@ -0,0 +1,41 @@
+package com.diegoip.order.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+
+/**
+ * Huella estable y no reversible de un dato personal, para agrupar por ese dato sin guardarlo en claro.
+ *
+ * Es un SHA-256 con una sal aleatoria por proceso, truncado a 64 bits: la misma entrada da la misma huella
+ * mientras la aplicación está en marcha, pero sin la sal no se puede recorrer el espacio de valores (un DNI
+ * tiene solo 10^8) para recuperarla. A diferencia de {@link SensitiveType#mask}, dos valores distintos no
+ * comparten huella en la práctica.
+ */
+public final class SensitiveDigest {
+
+    private static final int DIGEST_BYTES = 8;
+    private static final byte[] SALT = new byte[16];
+
+    static {
+        new SecureRandom().nextBytes(SALT);
+    }
+
+    private SensitiveDigest() {
+    }
+
+    public static String of(String value) {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Toda JVM debe incluir SHA-256
+            throw new IllegalStateException(e);
+        }
+        sha256.update(SALT);
+        byte[] hash = sha256.digest(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(hash, 0, DIGEST_BYTES);
+    }
+}
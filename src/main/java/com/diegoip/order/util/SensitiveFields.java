@@ -0,0 +1,116 @@
+package com.diegoip.order.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Representación para logs de objetos que tienen campos anotados con {@link Sensitive}.
+ *
+ * Los campos de cada clase se resuelven una sola vez y se guardan en un {@link ClassValue}. Los campos
+ * anotados se ofuscan por tipo; el resto se ofusca con {@link LogMaskingEngine} porque su contenido
+ * no está tipado.
+ */
+public final class SensitiveFields {
+
+    private static final int MAX_DEPTH = 3;
+
+    private static final ClassValue<FieldInfo[]> FIELDS = new ClassValue<>() {
+        @Override
+        protected FieldInfo[] computeValue(Class<?> type) {
+            return resolve(type);
+        }
+    };
+
+    private SensitiveFields() {
+    }
+
+    /**
+     * Indica si la clase tiene al menos un campo anotado con {@link Sensitive}.
+     */
+    public static boolean hasSensitiveFields(Class<?> type) {
+        return FIELDS.get(type).length > 0;
+    }
+
+    /**
+     * Devuelve el objeto con el formato {@code Clase(campo=valor, ...)} y sus datos personales ofuscados.
+     */
+    public static String render(Object value) {
+        StringBuilder sb = new StringBuilder(128);
+        render(value, sb, 0);
+        return sb.toString();
+    }
+
+    private static void render(Object value, StringBuilder sb, int depth) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        FieldInfo[] fields = FIELDS.get(value.getClass());
+        if (fields.length == 0 || depth >= MAX_DEPTH) {
+            LogMaskingEngine.maskTo(String.valueOf(value), sb);
+            return;
+        }
+
+        sb.append(value.getClass().getSimpleName()).append('(');
+        for (int i = 0; i < fields.length; i++) {
+            FieldInfo info = fields[i];
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(info.field.getName()).append('=');
+            Object fieldValue = info.read(value);
+            if (info.type != null && fieldValue != null) {
+                sb.append(info.type.mask(String.valueOf(fieldValue)));
+            } else {
+                render(fieldValue, sb, depth + 1);
+            }
+        }
+        sb.append(')');
+    }
+
+    private static FieldInfo[] resolve(Class<?> type) {
+        List<FieldInfo> fields = new ArrayList<>();
+        boolean sensitive = false;
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            if (current.getName().startsWith("java.")) {
+                break;
+            }
+            int position = 0;
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                    continue;
+                }
+                Sensitive annotation = field.getAnnotation(Sensitive.class);
+                sensitive |= annotation != null;
+                // Los campos de la superclase van primero, como en los toString generados por Lombok
+                fields.add(position++, new FieldInfo(field, annotation != null ? annotation.value() : null));
+            }
+        }
+        if (!sensitive || !trySetAccessible(fields)) {
+            return new FieldInfo[0];
+        }
+        return fields.toArray(new FieldInfo[0]);
+    }
+
+    private static boolean trySetAccessible(List<FieldInfo> fields) {
+        for (FieldInfo info : fields) {
+            if (!info.field.trySetAccessible()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private record FieldInfo(Field field, SensitiveType type) {
+
+        Object read(Object target) {
+            try {
+                return field.get(target);
+            } catch (IllegalAccessException e) {
+                return LogMaskingEngine.MASK;
+            }
+        }
+    }
+}
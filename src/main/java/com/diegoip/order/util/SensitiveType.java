@@ -0,0 +1,40 @@
+package com.diegoip.order.util;
+
+/**
+ * Tipos de dato personal y la forma en que se ofuscan en los logs.
+ */
+public enum SensitiveType {
+
+    DNI {
+        @Override
+        public String mask(String value) {
+            return LogMaskingUtil.maskDni(value);
+        }
+    },
+    EMAIL {
+        @Override
+        public String mask(String value) {
+            return LogMaskingUtil.maskEmail(value);
+        }
+    },
+    PHONE {
+        @Override
+        public String mask(String value) {
+            return LogMaskingUtil.maskPhone(value);
+        }
+    },
+    CARD {
+        @Override
+        public String mask(String value) {
+            return LogMaskingUtil.maskCardNumber(value);
+        }
+    },
+    GENERIC {
+        @Override
+        public String mask(String value) {
+            return LogMaskingUtil.maskGeneric(value);
+        }
+    };
+
+    public abstract String mask(String value);
+}
@@ -0,0 +1,44 @@
+package com.diegoip.order.util;
+
+/**
+ * Argumento de log que contiene un dato personal de tipo conocido.
+ *
+ * {@link #toString()} devuelve el valor ofuscado, por lo que el dato nunca llega en claro a un appender
+ * aunque el filtro de ofuscación no esté configurado. Uso:
+ * {@code log.info("Buscando pedidos por DNI: {}", SensitiveValue.dni(dni))}.
+ */
+public final class SensitiveValue {
+
+    private final SensitiveType type;
+    private final String value;
+
+    private SensitiveValue(SensitiveType type, String value) {
+        this.type = type;
+        this.value = value;
+    }
+
+    public static SensitiveValue of(SensitiveType type, String value) {
+        return new SensitiveValue(type, value);
+    }
+
+    public static SensitiveValue dni(String dni) {
+        return new SensitiveValue(SensitiveType.DNI, dni);
+    }
+
+    public static SensitiveValue email(String email) {
+        return new SensitiveValue(SensitiveType.EMAIL, email);
+    }
+
+    public SensitiveType type() {
+        return type;
+    }
+
+    public String masked() {
+        return type.mask(value);
+    }
+
+    @Override
+    public String toString() {
+        return masked();
+    }
+}
@@ -0,0 +1,107 @@
+package com.diegoip.order.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+import com.diegoip.order.controller.OrderController;
+import com.diegoip.order.model.Order;
+import com.diegoip.order.repository.OrderRepository;
+import com.diegoip.order.service.OrderService;
+import com.diegoip.order.util.SensitiveValue;
+
+class AccessLogFilterTests {
+
+	private final AccessLogFilter filter = new AccessLogFilter(new NewRelicUriMaskingFilter());
+	private final Logger logger = (Logger) LoggerFactory.getLogger("com.diegoip.order.access");
+	private final ListAppender<ILoggingEvent> events = new ListAppender<>();
+
+	@BeforeEach
+	void setUp() {
+		events.start();
+		logger.addAppender(events);
+	}
+
+	@AfterEach
+	void tearDown() {
+		logger.detachAppender(events);
+	}
+
+	@Test
+	void logsOneMaskedEventWithTheFactsCollectedDuringTheRequest() throws Exception {
+		HandlerMethod handler = new HandlerMethod(new OrderController(null),
+				OrderController.class.getMethod("getOrdersByDni", String.class));
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders/dni/12345678");
+		request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, handler);
+		request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/orders/dni/{dni}");
+		request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("dni", "12345678"));
+
+		filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+			RequestLogContext.put("orders", 2);
+			RequestLogContext.put("titular", SensitiveValue.dni("87654321"));
+			RequestLogContext.recordMongoCommand(3_000_000);
+		});
+
+		assertThat(events.list).hasSize(1);
+		ILoggingEvent event = events.list.get(0);
+		assertThat(event.getFormattedMessage())
+				.startsWith("Acceso GET /api/orders/dni/{dni} -> 200 en ")
+				.contains("orders=2", "mongo.commands=1", "mongo.ms=3")
+				.doesNotContain("12345678", "87654321");
+		assertThat(event.getMDCPropertyMap())
+				.containsEntry("access.route", "/api/orders/dni/{dni}")
+				.containsEntry("access.status", "200")
+				.containsEntry("access.orders", "2");
+		// Fuera de la petición el contexto ya no existe
+		RequestLogContext.put("orders", 3);
+		assertThat(events.list).hasSize(1);
+	}
+
+	@Test
+	void neverLogsTheOrderNumberUnmasked() throws Exception {
+		OrderService orderService = new OrderService(savingRepository("PED-20261019-4821"), null);
+		HandlerMethod handler = new HandlerMethod(new OrderController(orderService),
+				OrderController.class.getMethod("createOrder", Order.class));
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders");
+		request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, handler);
+		request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/orders");
+
+		Order order = new Order();
+		order.setDni("12345678");
+		filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> orderService.createOrder(order));
+
+		assertThat(events.list).hasSize(1);
+		ILoggingEvent event = events.list.get(0);
+		assertThat(event.getFormattedMessage())
+				.contains("numeroPedido=PE***21")
+				.doesNotContain("PED-20261019-4821", "12345678");
+		assertThat(event.getMDCPropertyMap())
+				.containsEntry("access.numeroPedido", "PE***21");
+	}
+
+	private static OrderRepository savingRepository(String numeroPedido) {
+		return (OrderRepository) Proxy.newProxyInstance(AccessLogFilterTests.class.getClassLoader(),
+				new Class<?>[] {OrderRepository.class}, (proxy, method, args) -> {
+					if (method.getName().equals("save")) {
+						Order saved = (Order) args[0];
+						saved.setNumeroPedido(numeroPedido);
+						return saved;
+					}
+					throw new UnsupportedOperationException(method.getName());
+				});
+	}
+}
@@ -0,0 +1,97 @@
+package com.diegoip.order.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ConcurrencyLimitFilterTests {
+
+	@Test
+	void limitGrowsWhileLatencyIsStableAndDropsWhenItRises() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(group(10));
+		for (int i = 0; i < 10; i++) {
+			assertThat(limit.tryAcquire()).isTrue();
+		}
+		assertThat(limit.tryAcquire()).isFalse();
+		assertThat(limit.getRejected().sum()).isEqualTo(1);
+
+		// Latencia estable con el límite en uso: crece
+		limit.release(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(10), false);
+		assertThat(limit.getLimit()).isGreaterThan(10);
+		for (int i = 0; i < 9; i++) {
+			limit.release(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(10), false);
+		}
+
+		// MongoDB lento: la latencia se multiplica y el límite baja hasta el mínimo
+		for (int i = 0; i < 5; i++) {
+			assertThat(limit.tryAcquire()).isTrue();
+			limit.release(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(200), false);
+		}
+		assertThat(limit.getLimit()).isEqualTo(2);
+		assertThat(limit.getInFlight()).isZero();
+	}
+
+	@Test
+	void shedsApiRequestsOverTheLimitButNeverActuator() throws Exception {
+		ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+		properties.setRead(group(1));
+		properties.setRetryAfter(Duration.ofSeconds(2));
+		ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(properties, new SimpleMeterRegistry());
+		assertThat(filter.reads().tryAcquire()).isTrue();
+
+		MockHttpServletResponse rejected = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("GET", "/api/products/sku/SKU-1"), rejected, new MockFilterChain());
+		assertThat(rejected.getStatus()).isEqualTo(503);
+		assertThat(rejected.getHeader("Retry-After")).isEqualTo("2");
+
+		MockHttpServletResponse health = new MockHttpServletResponse();
+		MockFilterChain chain = new MockFilterChain();
+		filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), health, chain);
+		assertThat(health.getStatus()).isEqualTo(200);
+		assertThat(chain.getRequest()).isNotNull();
+	}
+
+	@Test
+	void maxLimitsLeaveTheReservedTomcatThreadsFree() {
+		ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+		properties.getRead().setMaxLimit(200);
+		properties.getWrite().setMaxLimit(100);
+
+		ConcurrencyLimitConfig.capToWorkerThreads(properties, ConcurrencyLimitConfig.DEFAULT_TOMCAT_MAX_THREADS);
+
+		assertThat(properties.getRead().getMaxLimit()).isEqualTo(120);
+		assertThat(properties.getWrite().getMaxLimit()).isEqualTo(60);
+		assertThatThrownBy(() -> ConcurrencyLimitConfig.capToWorkerThreads(properties, 30))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void defaultLimitsFitTheDefaultTomcatPool() {
+		ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+
+		ConcurrencyLimitConfig.capToWorkerThreads(properties, ConcurrencyLimitConfig.DEFAULT_TOMCAT_MAX_THREADS);
+
+		assertThat(properties.getRead().getMaxLimit() + properties.getWrite().getMaxLimit())
+				.isLessThanOrEqualTo(ConcurrencyLimitConfig.DEFAULT_TOMCAT_MAX_THREADS - properties.getReservedThreads());
+	}
+
+	private static ConcurrencyLimitProperties.Group group(int initialLimit) {
+		ConcurrencyLimitProperties.Group group = new ConcurrencyLimitProperties.Group();
+		group.setInitialLimit(initialLimit);
+		group.setMinLimit(Math.min(2, initialLimit));
+		group.setMaxLimit(20);
+		group.setSmoothing(1.0);
+		group.setWindow(Duration.ZERO);
+		group.setMinWindowSamples(1);
+		return group;
+	}
+}
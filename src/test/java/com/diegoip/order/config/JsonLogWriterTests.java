@@ -0,0 +1,47 @@
+package com.diegoip.order.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class JsonLogWriterTests {
+
+	@Test
+	void escapesAndEncodesUtf8() {
+		JsonLogWriter json = JsonLogWriter.local();
+		json.beginObject()
+				.field("message", "Línea \"1\"\n\tcon \\ y \u0001 y 😀")
+				.field("timestamp", -1234567890123L)
+				.endObject();
+
+		assertThat(new String(json.toByteArray(), StandardCharsets.UTF_8))
+				.isEqualTo("{\"message\":\"Línea \\\"1\\\"\\n\\tcon \\\\ y \\u0001 y 😀\",\"timestamp\":-1234567890123}");
+	}
+
+	@Test
+	void masksWhileWriting() {
+		JsonLogWriter json = JsonLogWriter.local();
+		json.beginObject()
+				.maskedField("context.", "cliente", "DNI 45873219, mail ana@example.org, tel 987654321")
+				.endObject();
+
+		assertThat(new String(json.toByteArray(), StandardCharsets.UTF_8))
+				.isEqualTo("{\"context.cliente\":\"DNI 45***19, mail a***@example.org, tel ***321\"}");
+	}
+
+	@Test
+	void nestsObjectsAndSkipsNullValues() {
+		JsonLogWriter json = JsonLogWriter.local();
+		json.beginObject()
+				.field("a", "1")
+				.field("b", (String) null)
+				.name("attributes").beginObject().field("c", 2).endObject()
+				.field("d", "3")
+				.endObject();
+
+		assertThat(new String(json.toByteArray(), StandardCharsets.UTF_8))
+				.isEqualTo("{\"a\":\"1\",\"attributes\":{\"c\":2},\"d\":\"3\"}");
+	}
+}
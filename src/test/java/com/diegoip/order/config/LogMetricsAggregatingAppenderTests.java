@@ -0,0 +1,116 @@
+package com.diegoip.order.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import com.newrelic.api.agent.Insights;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LogMetricsAggregatingAppenderTests {
+
+	private static final String SLOW_QUERY = "Comando MongoDB lento: {} sobre {} tardó {} ms";
+
+	private final LoggerContext context = new LoggerContext();
+	private final Logger logger = context.getLogger("com.diegoip.order.metrics.Test");
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final LogMetricsAggregatingAppender appender = new LogMetricsAggregatingAppender();
+
+	LogMetricsAggregatingAppenderTests() {
+		context.setMDCAdapter(new LogbackMDCAdapter());
+		Metrics.addRegistry(registry);
+		appender.setContext(context);
+		appender.setMaxSeries(3);
+		appender.start();
+	}
+
+	@AfterEach
+	void tearDown() {
+		appender.stop();
+		Metrics.removeRegistry(registry);
+	}
+
+	@Test
+	void countsPerTemplateAndLevel() {
+		for (int i = 0; i < 5; i++) {
+			appender.doAppend(event(Level.INFO, "Pedido {} creado", "PED-" + i));
+		}
+		appender.doAppend(event(Level.WARN, "Stock bajo para {}", "SKU-1"));
+
+		assertThat(appender.getCount(logger.getName(), Level.INFO, "Pedido {} creado")).isEqualTo(5);
+		assertThat(registry.get("logging.events").tag("template", "Pedido {} creado").functionCounter().count())
+				.isEqualTo(5);
+		assertThat(appender.getCount(logger.getName(), Level.WARN, "Stock bajo para {}")).isEqualTo(1);
+	}
+
+	@Test
+	void recordsDurationsFromMillisecondTemplates() {
+		assertThat(LogMetricsAggregatingAppender.durationArgumentOf(SLOW_QUERY)).isEqualTo(2);
+		assertThat(LogMetricsAggregatingAppender.durationArgumentOf("Pedido {} en {}ms")).isEqualTo(1);
+		assertThat(LogMetricsAggregatingAppender.durationArgumentOf("Pedido {} mst")).isEqualTo(-1);
+
+		appender.doAppend(event(Level.INFO, SLOW_QUERY, "find", "orders", 120L));
+		appender.doAppend(event(Level.INFO, SLOW_QUERY, "find", "orders", 80L));
+
+		Timer timer = registry.get("logging.template.duration").timer();
+		assertThat(timer.count()).isEqualTo(2);
+		assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(200);
+	}
+
+	@Test
+	void keepsCountsOfASeriesThatFailedToPublishAndPublishesTheRest() {
+		List<Map<String, Object>> sent = new ArrayList<>();
+		AtomicBoolean failing = new AtomicBoolean(true);
+		appender.setInsights(new Insights() {
+			@Override
+			public void recordCustomEvent(String eventType, Map<String, ?> attributes) {
+				if (failing.get() && "Pedido {} creado".equals(attributes.get("template"))) {
+					throw new IllegalStateException("Agente no disponible");
+				}
+				sent.add(Map.copyOf(attributes));
+			}
+		});
+		for (int i = 0; i < 3; i++) {
+			appender.doAppend(event(Level.INFO, "Pedido {} creado", "PED-" + i));
+			appender.doAppend(event(Level.INFO, "Producto {} actualizado", "SKU-" + i));
+		}
+
+		appender.publish();
+		assertThat(sent).singleElement()
+				.satisfies(attributes -> assertThat(attributes.get("template")).isEqualTo("Producto {} actualizado"));
+
+		failing.set(false);
+		appender.doAppend(event(Level.INFO, "Pedido {} creado", "PED-3"));
+		appender.publish();
+		assertThat(sent).hasSize(2);
+		assertThat(sent.get(1)).containsEntry("template", "Pedido {} creado").containsEntry("count", 4L);
+	}
+
+	@Test
+	void groupsTemplatesBeyondMaxSeries() {
+		for (int i = 0; i < 10; i++) {
+			appender.doAppend(event(Level.INFO, "Plantilla armada por concatenación " + i, (Object[]) null));
+		}
+
+		assertThat(appender.getSeriesCount()).isEqualTo(4);
+		assertThat(appender.getCount(logger.getName(), Level.INFO, "(other)")).isEqualTo(7);
+	}
+
+	private LoggingEvent event(Level level, String format, Object... arguments) {
+		return new LoggingEvent(Logger.FQCN, logger, level, format, null, arguments);
+	}
+}
@@ -0,0 +1,339 @@
+package com.diegoip.order.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.util.Duration;
+
+class MaskingNewRelicLogApiAppenderTests {
+
+	private static final Pattern ENTRY = Pattern.compile("\"timestamp\":");
+	private static final Pattern ORDER_NUMBER = Pattern.compile("Pedido (\\d+)");
+
+	private final LoggerContext context = new LoggerContext();
+	private final Logger logger = context.getLogger(MaskingNewRelicLogApiAppenderTests.class);
+
+	private final List<String> payloads = new CopyOnWriteArrayList<>();
+	private final AtomicInteger received = new AtomicInteger();
+	private final CountDownLatch serverGate = new CountDownLatch(1);
+	private volatile boolean slowServer;
+	private volatile boolean serverDown;
+	private volatile boolean flappingServer;
+	private final AtomicInteger requests = new AtomicInteger();
+	private final AtomicInteger rejected = new AtomicInteger();
+	private HttpServer server;
+	private MaskingNewRelicLogApiAppender appender;
+
+	@BeforeEach
+	void startServer() throws IOException {
+		context.setMDCAdapter(new LogbackMDCAdapter());
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/log/v1", this::handle);
+		server.start();
+	}
+
+	@AfterEach
+	void stopServer() {
+		serverGate.countDown();
+		if (appender != null) {
+			appender.stop();
+		}
+		server.stop(0);
+	}
+
+	@Test
+	void sendsEventsInGzipBatches() throws Exception {
+		appender = startAppender(100, Duration.buildBySeconds(5));
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 1_000; i++) {
+			appender.doAppend(event("Pedido " + i + " para DNI 45873219"));
+		}
+		long appendMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		awaitReceived(1_000);
+		// El hilo que registra no espera la red: 1000 eventos en mucho menos de un envío por evento
+		assertThat(appendMillis).isLessThan(2_000);
+		assertThat(payloads).hasSize(10);
+		assertThat(payloads.get(0))
+				.startsWith("[{\"common\":{\"attributes\":")
+				.contains("\"message\":\"Pedido 0 para DNI 45***19\"")
+				.doesNotContain("45873219");
+	}
+
+	@Test
+	void recordsTheThreadThatLoggedTheEventNotTheOneThatAppendsIt() throws Exception {
+		appender = startAppender(500, Duration.buildByMilliseconds(200));
+		MaskedLoggingEvent masked = MaskedLoggingEvent.of(event("Pedido creado"));
+
+		Thread consumer = new Thread(() -> appender.doAppend(masked));
+		consumer.start();
+		consumer.join();
+
+		awaitReceived(1);
+		assertThat(payloads.get(0))
+				.contains("\"thread.id\":" + Thread.currentThread().threadId())
+				.doesNotContain("\"thread.id\":" + consumer.threadId());
+	}
+
+	@Test
+	void flushesPartialBatchAfterInterval() throws Exception {
+		appender = startAppender(500, Duration.buildByMilliseconds(200));
+
+		appender.doAppend(event("Pedido creado"));
+
+		awaitReceived(1);
+		assertThat(payloads).hasSize(1);
+	}
+
+	@Test
+	void flushesPendingEventsOnStop() throws Exception {
+		appender = startAppender(500, Duration.buildBySeconds(30));
+		for (int i = 0; i < 20; i++) {
+			appender.doAppend(event("Pedido " + i));
+		}
+
+		appender.stop();
+
+		assertThat(received.get()).isEqualTo(20);
+	}
+
+	@Test
+	void dropsEventsBelowWarnWhenQueueIsFull() throws Exception {
+		slowServer = true;
+		appender = startAppender(1, Duration.buildByMilliseconds(10), 10, MaskingNewRelicLogApiAppender.OverflowPolicy.DROP_BELOW_WARN);
+		appender.doAppend(event("Primer pedido"));
+		awaitQueueDepth(0);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 100; i++) {
+			appender.doAppend(event("Pedido " + i));
+		}
+		appender.doAppend(event(Level.ERROR, "Error al guardar pedido"));
+		long appendMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		// 90 INFO descartados por falta de lugar y 1 INFO desplazado por el ERROR
+		assertThat(appender.getQueueDepth()).isEqualTo(10);
+		assertThat(appender.getDroppedCount()).isEqualTo(91);
+		assertThat(appendMillis).isLessThan(1_000);
+
+		serverGate.countDown();
+		awaitReceived(11);
+		assertThat(payloads).last().asString().contains("Error al guardar pedido");
+	}
+
+	@Test
+	void blocksOnlyUpToTimeoutWhenQueueIsFull() throws Exception {
+		slowServer = true;
+		appender = startAppender(1, Duration.buildByMilliseconds(10), 1, MaskingNewRelicLogApiAppender.OverflowPolicy.BLOCK_WITH_TIMEOUT);
+		appender.setBlockTimeout(Duration.buildByMilliseconds(50));
+		appender.doAppend(event("Primer pedido"));
+		awaitQueueDepth(0);
+		appender.doAppend(event("Segundo pedido"));
+
+		long start = System.nanoTime();
+		appender.doAppend(event("Tercer pedido"));
+		long appendMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertThat(appender.getDroppedCount()).isEqualTo(1);
+		assertThat(appendMillis).isBetween(40L, 1_000L);
+	}
+
+	@Test
+	void spoolsWhileEndpointIsDownAndReplaysInOrderAfterRestart(@TempDir Path spoolDirectory) throws Exception {
+		serverDown = true;
+		appender = startSpoolingAppender(spoolDirectory);
+		for (int i = 0; i < 30; i++) {
+			appender.doAppend(event("Pedido " + i));
+		}
+		awaitRejected(1);
+		appender.stop();
+		assertThat(received.get()).isZero();
+		assertThat(appender.getDroppedCount()).isZero();
+
+		// Al reiniciar el endpoint responde, pero falla una de cada dos peticiones
+		serverDown = false;
+		flappingServer = true;
+		appender = startSpoolingAppender(spoolDirectory);
+		for (int i = 30; i < 50; i++) {
+			appender.doAppend(event("Pedido " + i));
+		}
+
+		awaitReceived(50);
+		assertThat(rejected.get()).isGreaterThan(1);
+		assertThat(receivedOrderNumbers()).containsExactlyElementsOf(range(0, 50));
+		assertThat(appender.getDroppedCount()).isZero();
+	}
+
+	@Test
+	void keepsOrderWhenTheQueueFillsWhileEndpointIsDown(@TempDir Path spoolDirectory) throws Exception {
+		serverDown = true;
+		slowServer = true;
+		appender = startSpoolingAppender(spoolDirectory, 10);
+		appender.doAppend(event("Pedido 0"));
+		awaitQueueDepth(0);
+
+		// El hilo de envío está esperando la respuesta: 10 eventos llenan la cola y los 5 siguientes se descartan
+		for (int i = 1; i <= 15; i++) {
+			appender.doAppend(event("Pedido " + i));
+		}
+		assertThat(appender.getDroppedCount()).isEqualTo(5);
+
+		serverGate.countDown();
+		awaitRejected(1);
+		awaitQueueDepth(0);
+		assertThat(received.get()).isZero();
+
+		serverDown = false;
+		awaitReceived(11);
+		assertThat(receivedOrderNumbers()).containsExactlyElementsOf(range(0, 11));
+	}
+
+	private MaskingNewRelicLogApiAppender startSpoolingAppender(Path spoolDirectory) {
+		return startSpoolingAppender(spoolDirectory, 8192);
+	}
+
+	private MaskingNewRelicLogApiAppender startSpoolingAppender(Path spoolDirectory, int queueSize) {
+		MaskingNewRelicLogApiAppender logApiAppender = new MaskingNewRelicLogApiAppender();
+		logApiAppender.setContext(context);
+		logApiAppender.setEndpoint("http://127.0.0.1:" + server.getAddress().getPort() + "/log/v1");
+		logApiAppender.setLicenseKey("test-license-key");
+		logApiAppender.setBatchSize(10);
+		logApiAppender.setFlushInterval(Duration.buildByMilliseconds(50));
+		logApiAppender.setSpoolDirectory(spoolDirectory.toString());
+		logApiAppender.setSpoolRetryInterval(Duration.buildByMilliseconds(20));
+		logApiAppender.setQueueSize(queueSize);
+		logApiAppender.start();
+		return logApiAppender;
+	}
+
+	private List<Integer> receivedOrderNumbers() {
+		List<Integer> numbers = new ArrayList<>();
+		for (String payload : payloads) {
+			Matcher matcher = ORDER_NUMBER.matcher(payload);
+			while (matcher.find()) {
+				numbers.add(Integer.parseInt(matcher.group(1)));
+			}
+		}
+		return numbers;
+	}
+
+	private static List<Integer> range(int from, int to) {
+		List<Integer> numbers = new ArrayList<>();
+		for (int i = from; i < to; i++) {
+			numbers.add(i);
+		}
+		return numbers;
+	}
+
+	private MaskingNewRelicLogApiAppender startAppender(int batchSize, Duration flushInterval) {
+		return startAppender(batchSize, flushInterval, 8192, MaskingNewRelicLogApiAppender.OverflowPolicy.DROP_BELOW_WARN);
+	}
+
+	private MaskingNewRelicLogApiAppender startAppender(int batchSize, Duration flushInterval, int queueSize,
+			MaskingNewRelicLogApiAppender.OverflowPolicy overflowPolicy) {
+		MaskingNewRelicLogApiAppender logApiAppender = new MaskingNewRelicLogApiAppender();
+		logApiAppender.setContext(context);
+		logApiAppender.setEndpoint("http://127.0.0.1:" + server.getAddress().getPort() + "/log/v1");
+		logApiAppender.setLicenseKey("test-license-key");
+		logApiAppender.setBatchSize(batchSize);
+		logApiAppender.setFlushInterval(flushInterval);
+		logApiAppender.setQueueSize(queueSize);
+		logApiAppender.setOverflowPolicy(overflowPolicy);
+		logApiAppender.start();
+		return logApiAppender;
+	}
+
+	private LoggingEvent event(String message) {
+		return event(Level.INFO, message);
+	}
+
+	private LoggingEvent event(Level level, String message) {
+		return new LoggingEvent(Logger.FQCN, logger, level, message, null, null);
+	}
+
+	private void awaitQueueDepth(int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (appender.getQueueDepth() != expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		// Dar tiempo a que el hilo de envío quede esperando la respuesta del servidor
+		Thread.sleep(50);
+	}
+
+	private void awaitRejected(int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (rejected.get() < expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+
+	private void awaitReceived(int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (received.get() < expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertThat(received.get()).isEqualTo(expected);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		if (slowServer) {
+			try {
+				serverGate.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (serverDown || (flappingServer && requests.incrementAndGet() % 2 == 1)) {
+			rejected.incrementAndGet();
+			exchange.getRequestBody().readAllBytes();
+			exchange.sendResponseHeaders(503, -1);
+			exchange.close();
+			return;
+		}
+		assertThat(exchange.getRequestHeaders().getFirst("Content-Encoding")).isEqualTo("gzip");
+		assertThat(exchange.getRequestHeaders().getFirst("Api-Key")).isEqualTo("test-license-key");
+
+		String body;
+		try (InputStream in = new GZIPInputStream(exchange.getRequestBody())) {
+			body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+		int entries = 0;
+		Matcher matcher = ENTRY.matcher(body);
+		while (matcher.find()) {
+			entries++;
+		}
+		payloads.add(body);
+		received.addAndGet(entries);
+
+		exchange.sendResponseHeaders(202, -1);
+		exchange.close();
+	}
+}
@@ -0,0 +1,38 @@
+package com.diegoip.order.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class MongoDeadlinePropertiesTests {
+
+	private final MongoDeadlineProperties deadlines = new MongoDeadlineProperties();
+
+	@Test
+	void usesTheMethodTimeoutOrTheDefault() {
+		deadlines.getMethods().put("OrderRepository.findByDni", Duration.ofSeconds(1));
+
+		assertThat(deadlines.deadlineFor("OrderRepository.findByDni")).isEqualTo(Duration.ofSeconds(1));
+		assertThat(deadlines.deadlineFor("OrderRepository.findAll")).isEqualTo(Duration.ofSeconds(2));
+		assertThat(deadlines.deadlineFor("none")).isEqualTo(Duration.ofSeconds(2));
+	}
+
+	@Test
+	void keepsZeroAndNegativeMethodTimeoutsInsteadOfTheDefault() {
+		// 0 y los negativos dejan la operación sin límite (RoutingMongoTemplate), no vuelven al valor por defecto
+		deadlines.getMethods().put("ProductRepository.findAllForSearchIndex", Duration.ZERO);
+		deadlines.getMethods().put("ProductRepository.findBySku", Duration.ofMillis(-1));
+
+		assertThat(deadlines.deadlineFor("ProductRepository.findAllForSearchIndex")).isZero();
+		assertThat(deadlines.deadlineFor("ProductRepository.findBySku")).isNegative();
+	}
+
+	@Test
+	void nullDefaultLeavesUnconfiguredMethodsUnbounded() {
+		deadlines.setDefaultTimeout(null);
+
+		assertThat(deadlines.deadlineFor("OrderRepository.findAll")).isNull();
+	}
+}
@@ -0,0 +1,50 @@
+package com.diegoip.order.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.diegoip.order.controller.OrderController;
+
+class NewRelicUriMaskingFilterTests {
+
+	private final NewRelicUriMaskingFilter filter = new NewRelicUriMaskingFilter();
+
+	@Test
+	void namesTransactionWithRouteTemplateAndMasksSensitiveVariables() throws Exception {
+		MockHttpServletRequest request = request("getOrderByNumeroPedido", "/api/orders/numero/{numeroPedido}");
+
+		NewRelicUriMaskingFilter.Route route = filter.routeFor(request, "/api/orders/numero/{numeroPedido}");
+
+		assertThat(route.transactionName()).isEqualTo("/api/orders/numero/{numeroPedido} (GET)");
+		assertThat(route.isSensitive()).isTrue();
+		assertThat(route.maskedUri(Map.of("numeroPedido", "PED-20240001")))
+				.isEqualTo("/api/orders/numero/PE***01");
+		// Segunda petición a la misma ruta: se reutiliza lo calculado
+		assertThat(filter.routeFor(request, "/api/orders/numero/{numeroPedido}")).isSameAs(route);
+	}
+
+	@Test
+	void routesWithoutSensitiveVariablesAreNotMasked() throws Exception {
+		MockHttpServletRequest request = request("getOrderById", "/api/orders/{id}");
+
+		NewRelicUriMaskingFilter.Route route = filter.routeFor(request, "/api/orders/{id}");
+
+		assertThat(route.transactionName()).isEqualTo("/api/orders/{id} (GET)");
+		assertThat(route.isSensitive()).isFalse();
+	}
+
+	private MockHttpServletRequest request(String methodName, String pattern) throws Exception {
+		HandlerMethod handler = new HandlerMethod(new OrderController(null),
+				OrderController.class.getMethod(methodName, String.class));
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, handler);
+		request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+		return request;
+	}
+}
@@ -0,0 +1,114 @@
+package com.diegoip.order.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.read.ListAppender;
+
+class RingBufferAsyncAppenderTests {
+
+	private final LoggerContext context = new LoggerContext();
+	private final Logger logger = context.getLogger(RingBufferAsyncAppenderTests.class);
+
+	RingBufferAsyncAppenderTests() {
+		context.setMDCAdapter(new LogbackMDCAdapter());
+	}
+
+	@Test
+	void deliversEventsFromManyThreadsInOrderPerThread() throws Exception {
+		ListAppender<ILoggingEvent> target = new ListAppender<>();
+		RingBufferAsyncAppender appender = startAppender(target, 64, false);
+
+		int producers = 4;
+		int eventsPerProducer = 10_000;
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			String prefix = "p" + p + "-";
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < eventsPerProducer; i++) {
+					appender.doAppend(event(prefix + i));
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		appender.stop();
+
+		assertThat(target.list).hasSize(producers * eventsPerProducer);
+		int[] next = new int[producers];
+		for (ILoggingEvent event : target.list) {
+			String[] parts = event.getMessage().split("-");
+			int producer = Integer.parseInt(parts[0].substring(1));
+			assertThat(Integer.parseInt(parts[1])).isEqualTo(next[producer]++);
+		}
+		assertThat(target.list).noneMatch(ILoggingEvent::hasCallerData);
+	}
+
+	@Test
+	void discardsWhenRingIsFullAndNeverBlock() throws Exception {
+		CountDownLatch delivering = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AppenderBase<ILoggingEvent> slowTarget = new AppenderBase<>() {
+			@Override
+			protected void append(ILoggingEvent event) {
+				delivering.countDown();
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		RingBufferAsyncAppender appender = startAppender(slowTarget, 4, true);
+
+		appender.doAppend(event("primero"));
+		assertThat(delivering.await(5, TimeUnit.SECONDS)).isTrue();
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 9; i++) {
+			appender.doAppend(event("evento " + i));
+		}
+		long appendMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		// La celda del primer evento sigue ocupada mientras se entrega: solo entran 3 de los 9
+		assertThat(appender.getDiscardedCount()).isEqualTo(6);
+		assertThat(appendMillis).isLessThan(1_000);
+
+		release.countDown();
+		appender.stop();
+	}
+
+	private RingBufferAsyncAppender startAppender(AppenderBase<ILoggingEvent> target, int ringSize, boolean neverBlock) {
+		target.setContext(context);
+		target.start();
+		RingBufferAsyncAppender appender = new RingBufferAsyncAppender();
+		appender.setContext(context);
+		appender.setName("RING");
+		appender.setRingSize(ringSize);
+		appender.setDiscardingThreshold(0);
+		appender.setNeverBlock(neverBlock);
+		appender.addAppender(target);
+		appender.start();
+		return appender;
+	}
+
+	private LoggingEvent event(String message) {
+		return new LoggingEvent(Logger.FQCN, logger, Level.INFO, message, null, null);
+	}
+}
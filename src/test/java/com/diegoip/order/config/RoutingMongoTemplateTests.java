@@ -0,0 +1,81 @@
+package com.diegoip.order.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+
+import com.diegoip.order.metrics.RepositoryMethodInterceptor;
+import com.diegoip.order.repository.ProductRepository;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+
+class RoutingMongoTemplateTests {
+
+	// El cliente no se conecta hasta ejecutar un comando, y acá solo se preparan colecciones
+	private final MongoClient client = MongoClients.create("mongodb://127.0.0.1:1");
+	private final MongoCollection<Document> collection = client.getDatabase("test").getCollection("products");
+	private final MongoDeadlineProperties deadlines = new MongoDeadlineProperties();
+	private final RoutingMongoTemplate template =
+			new RoutingMongoTemplate(new SimpleMongoClientDatabaseFactory(client, "test"), null, deadlines);
+	private final AtomicReference<MongoCollection<Document>> prepared = new AtomicReference<>();
+
+	@AfterEach
+	void closeClient() {
+		client.close();
+	}
+
+	@Test
+	void appliesTheTimeoutOfTheRepositoryMethodInCourse() {
+		deadlines.getMethods().put("ProductRepository.findAllForSearchIndex", Duration.ofSeconds(30));
+		ProductRepository repository = repository();
+
+		repository.findAllForSearchIndex();
+		assertThat(prepared.get().getTimeout(TimeUnit.MILLISECONDS)).isEqualTo(30_000);
+
+		// findAll no comparte el plazo de la carga del índice: usa el valor por defecto
+		repository.findAll();
+		assertThat(prepared.get().getTimeout(TimeUnit.MILLISECONDS)).isEqualTo(2_000);
+
+		// Fuera de un repositorio también rige el valor por defecto
+		assertThat(template.prepareCollection(collection).getTimeout(TimeUnit.MILLISECONDS)).isEqualTo(2_000);
+	}
+
+	@Test
+	void leavesTheOperationUnboundedWithZeroNullOrNegativeTimeouts() {
+		deadlines.getMethods().put("ProductRepository.findAllForSearchIndex", Duration.ZERO);
+		deadlines.getMethods().put("ProductRepository.findBySku", Duration.ofSeconds(-1));
+		deadlines.setDefaultTimeout(null);
+		ProductRepository repository = repository();
+
+		repository.findAllForSearchIndex();
+		assertThat(prepared.get().getTimeout(TimeUnit.MILLISECONDS)).isNull();
+		repository.findBySku("TEC-1");
+		assertThat(prepared.get().getTimeout(TimeUnit.MILLISECONDS)).isNull();
+		repository.findAll();
+		assertThat(prepared.get().getTimeout(TimeUnit.MILLISECONDS)).isNull();
+	}
+
+	/**
+	 * Repositorio que, dentro del contexto del método invocado, solo prepara la colección.
+	 */
+	private ProductRepository repository() {
+		ProxyFactory factory = new ProxyFactory();
+		factory.setInterfaces(ProductRepository.class);
+		factory.addAdvice(new RepositoryMethodInterceptor(ProductRepository.class));
+		factory.addAdvice((MethodInterceptor) invocation -> {
+			prepared.set(template.prepareCollection(collection));
+			return null;
+		});
+		return (ProductRepository) factory.getProxy();
+	}
+}
@@ -0,0 +1,134 @@
+package com.diegoip.order.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.util.Duration;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SamplingTurboFilterTests {
+
+	private final LoggerContext context = new LoggerContext();
+	private final Logger logger = context.getLogger("com.diegoip.order.service.OrderService");
+	private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+	private final SamplingTurboFilter filter = new SamplingTurboFilter();
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	SamplingTurboFilterTests() {
+		context.setMDCAdapter(new LogbackMDCAdapter());
+		appender.setContext(context);
+		appender.start();
+		logger.addAppender(appender);
+		logger.setLevel(Level.DEBUG);
+
+		filter.setContext(context);
+		filter.setDefaultRate(10);
+		filter.setSummaryInterval(Duration.buildByMinutes(60));
+		Metrics.addRegistry(registry);
+	}
+
+	@AfterEach
+	void stopFilter() {
+		filter.stop();
+		Metrics.removeRegistry(registry);
+	}
+
+	@Test
+	void limitsEachTemplateIndependently() {
+		startFilter();
+
+		for (int i = 0; i < 100; i++) {
+			logger.info("Pedido {} creado", i);
+			logger.debug("Validando pedido {}", i);
+		}
+
+		assertThat(count("Pedido {} creado")).isBetween(10L, 11L);
+		assertThat(count("Validando pedido {}")).isBetween(10L, 11L);
+	}
+
+	@Test
+	void neverSamplesWarnOrError() {
+		startFilter();
+
+		for (int i = 0; i < 100; i++) {
+			logger.warn("Stock bajo para {}", i);
+			logger.error("Error al guardar pedido {}", i);
+		}
+
+		assertThat(appender.list).hasSize(200);
+		assertThat(filter.getSuppressedCount()).isZero();
+	}
+
+	@Test
+	void ignoresDisabledEvents() {
+		startFilter();
+		logger.setLevel(Level.INFO);
+
+		for (int i = 0; i < 100; i++) {
+			logger.debug("Validando pedido {}", i);
+		}
+
+		assertThat(filter.getSuppressedCount()).isZero();
+	}
+
+	@Test
+	void quotaOfZeroDisablesLimit() {
+		filter.addQuota("com.diegoip.order.service=0");
+		startFilter();
+
+		for (int i = 0; i < 100; i++) {
+			logger.info("Pedido {} creado", i);
+		}
+
+		assertThat(count("Pedido {} creado")).isEqualTo(100);
+	}
+
+	@Test
+	void summarizesSuppressedEvents() {
+		startFilter();
+		for (int i = 0; i < 100; i++) {
+			logger.info("Pedido {} creado", i);
+		}
+		long suppressed = filter.getSuppressedCount();
+
+		filter.emitSummaries();
+
+		ILoggingEvent summary = appender.list.get(appender.list.size() - 1);
+		assertThat(summary.getFormattedMessage())
+				.startsWith("Muestreo de logs: se suprimieron " + suppressed + " eventos de la plantilla \"Pedido {} creado\"");
+		assertThat(filter.getSuppressedCount()).isZero();
+	}
+
+	@Test
+	void countsSuppressedEventsAcrossSummaries() {
+		startFilter();
+		for (int i = 0; i < 100; i++) {
+			logger.info("Pedido {} creado", i);
+		}
+		long delivered = count("Pedido {} creado");
+		filter.emitSummaries();
+
+		// Lo descartado no llega a los appenders: el contador cubre lo que logging.events no ve
+		double suppressed = registry.get("logging.events.suppressed").tag("logger", logger.getName())
+				.functionCounter().count();
+		assertThat(suppressed).isEqualTo(100 - delivered);
+	}
+
+	private void startFilter() {
+		filter.start();
+		context.addTurboFilter(filter);
+	}
+
+	private long count(String format) {
+		return appender.list.stream().filter(event -> event.getMessage().equals(format)).count();
+	}
+}
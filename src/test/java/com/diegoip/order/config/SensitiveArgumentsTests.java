@@ -0,0 +1,69 @@
+package com.diegoip.order.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.diegoip.order.model.Order;
+import com.diegoip.order.util.SensitiveValue;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+
+class SensitiveArgumentsTests {
+
+	private final Logger logger = new LoggerContext().getLogger(SensitiveArgumentsTests.class);
+
+	@Test
+	void masksSensitiveValueByTypeRegardlessOfFormat() {
+		// 7 dígitos: ningún patrón lo reconoce como DNI, pero el tipo sí
+		assertThat(maskedMessage("Buscando pedidos por DNI: {}", SensitiveValue.dni("4587321")))
+				.isEqualTo("Buscando pedidos por DNI: 45***21");
+	}
+
+	@Test
+	void rendersAnnotatedFieldsMasked() {
+		Order order = new Order("1", "PED-001", "4587321", List.of(), LocalDateTime.of(2024, 1, 1, 0, 0), "NUEVO", 10.0);
+
+		assertThat(maskedMessage("Pedido recibido: {}", order))
+				.contains("dni=45***21")
+				.contains("numeroPedido=PED-001")
+				.doesNotContain("4587321");
+	}
+
+	@Test
+	void scansUntypedStringsAndNumbers() {
+		assertThat(maskedMessage("Contacto {} / {}", "ana@example.org", 45873219L))
+				.isEqualTo("Contacto a***@example.org / 45***19");
+	}
+
+	@Test
+	void masksSensitiveDataWrittenInTheFormat() {
+		assertThat(maskedMessage("DNI 45873219 con {} pedidos", 3))
+				.isEqualTo("DNI 45***19 con 3 pedidos");
+	}
+
+	@Test
+	void masksValuesJoinedAcrossPlaceholders() {
+		assertThat(maskedMessage("{}{}", "4587", "3219")).isEqualTo("45***19");
+	}
+
+	@Test
+	void turboFilterMasksVarargsInPlace() {
+		Object[] params = {SensitiveValue.dni("4587321"), "45873219", 5};
+
+		new MaskingTurboFilterV2().decide(null, logger, Level.INFO, "{} {} {}", params, null);
+
+		assertThat(params).containsExactly("45***21", "45***19", 5);
+	}
+
+	private String maskedMessage(String format, Object... arguments) {
+		LoggingEvent event = new LoggingEvent(Logger.FQCN, logger, Level.INFO, format, null, arguments);
+		return MaskedLoggingEvent.of(event).getFormattedMessage();
+	}
+}
@@ -0,0 +1,53 @@
+package com.diegoip.order.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.TaggableReadPreference;
+
+class ServiceReadPreferencePostProcessorTests {
+
+	@Test
+	void routesConfiguredMethodsAndKeepsTheRestOnThePrimary() {
+		MongoReadPreferenceProperties properties = new MongoReadPreferenceProperties();
+		MongoReadPreferenceProperties.Routing listing = new MongoReadPreferenceProperties.Routing();
+		listing.setMaxStaleness(Duration.ofSeconds(10));
+		properties.getMethods().put("ReportService.listAll", listing);
+
+		Object bean = new ServiceReadPreferencePostProcessor(properties)
+				.postProcessAfterInitialization(new ReportService(), "reportService");
+
+		assertThat(bean).isInstanceOf(ReportService.class);
+		ReportService service = (ReportService) bean;
+		ReadPreference readPreference = service.listAll();
+		assertThat(readPreference.getName()).isEqualTo("secondaryPreferred");
+		// Menos de 90 s no lo admite el driver
+		assertThat(((TaggableReadPreference) readPreference).getMaxStaleness(TimeUnit.SECONDS)).isEqualTo(90);
+		assertThat(service.findById()).isNull();
+		assertThat(ReadPreferenceContext.current()).isNull();
+	}
+
+	@Test
+	void beansWithoutConfiguredMethodsAreNotProxied() {
+		ReportService service = new ReportService();
+
+		assertThat(new ServiceReadPreferencePostProcessor(new MongoReadPreferenceProperties())
+				.postProcessAfterInitialization(service, "reportService")).isSameAs(service);
+	}
+
+	static class ReportService {
+
+		public ReadPreference listAll() {
+			return ReadPreferenceContext.current();
+		}
+
+		public ReadPreference findById() {
+			return ReadPreferenceContext.current();
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.diegoip.order.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.read.ListAppender;
+import com.diegoip.order.config.MaskingDispatchAppender;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LoggingPipelineEndpointTests {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void reportsEventsAndMaskingPerAppender() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		Metrics.addRegistry(registry);
+		LoggerContext context = new LoggerContext();
+		context.setMDCAdapter(new LogbackMDCAdapter());
+		Logger logger = context.getLogger(LoggingPipelineEndpointTests.class);
+
+		ListAppender<ILoggingEvent> target = new ListAppender<>();
+		target.setContext(context);
+		target.start();
+		MaskingDispatchAppender dispatch = new MaskingDispatchAppender();
+		dispatch.setContext(context);
+		dispatch.setName("MASKING_TEST");
+		dispatch.addAppender(target);
+		dispatch.start();
+		// Ventana larga: las ventanas se cierran a mano con snapshot()
+		LoggingPipelineEndpoint endpoint = new LoggingPipelineEndpoint(registry, Duration.ofHours(1));
+		try {
+			for (int i = 0; i < 10; i++) {
+				dispatch.doAppend(new LoggingEvent(Logger.FQCN, logger, Level.INFO, "DNI {}", null, new Object[]{"12345678"}));
+			}
+
+			// Antes de cerrar la primera ventana hay totales pero todavía no hay tasas
+			Map<String, Object> pipeline = endpoint.pipeline();
+			Map<String, LoggingPipelineEndpoint.AppenderStats> appenders =
+					(Map<String, LoggingPipelineEndpoint.AppenderStats>) pipeline.get("appenders");
+			assertThat(appenders.get("MASKING_TEST").events()).isEqualTo(10);
+			assertThat(appenders.get("MASKING_TEST").eventsPerSecond()).isZero();
+			assertThat(((LoggingPipelineEndpoint.Latency) pipeline.get("masking")).count()).isGreaterThanOrEqualTo(10);
+
+			endpoint.snapshot();
+
+			// Consultar varias veces no cambia la tasa de la ventana cerrada
+			double rate = eventsPerSecond(endpoint);
+			assertThat(rate).isPositive();
+			assertThat(eventsPerSecond(endpoint)).isEqualTo(rate);
+
+			// Sin eventos nuevos, la ventana siguiente tiene tasa cero
+			endpoint.snapshot();
+			assertThat(eventsPerSecond(endpoint)).isZero();
+		} finally {
+			endpoint.close();
+			dispatch.stop();
+			Metrics.removeRegistry(registry);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static double eventsPerSecond(LoggingPipelineEndpoint endpoint) {
+		Map<String, LoggingPipelineEndpoint.AppenderStats> appenders =
+				(Map<String, LoggingPipelineEndpoint.AppenderStats>) endpoint.pipeline().get("appenders");
+		return appenders.get("MASKING_TEST").eventsPerSecond();
+	}
+}
@@ -0,0 +1,72 @@
+package com.diegoip.order.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import com.diegoip.order.config.MongoCircuitBreakerProperties;
+import com.mongodb.MongoOperationTimeoutException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MongoCircuitBreakerTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void opensOnTimeoutRateFailsFastAndClosesAfterSuccessfulTrialCalls() throws Exception {
+		MongoCircuitBreaker breaker = new MongoCircuitBreaker(properties(), registry);
+
+		// Los errores que no son timeout no abren el circuito
+		for (int i = 0; i < 4; i++) {
+			call(breaker, new DuplicateKeyException("duplicado"));
+		}
+		assertThat(breaker.getState()).isEqualTo(MongoCircuitBreaker.State.CLOSED);
+
+		// 4 timeouts sobre 8 llamadas: 50%
+		for (int i = 0; i < 4; i++) {
+			call(breaker, new MongoOperationTimeoutException("maxTimeMS"));
+		}
+		assertThat(breaker.getState()).isEqualTo(MongoCircuitBreaker.State.OPEN);
+		assertThatThrownBy(() -> breaker.acquire("OrderRepository.findByDni"))
+				.isInstanceOf(MongoCircuitOpenException.class);
+		assertThat(registry.get(MongoCircuitBreaker.REJECTED).functionCounter().count()).isEqualTo(1);
+
+		Thread.sleep(250);
+		assertThat(breaker.getState()).isEqualTo(MongoCircuitBreaker.State.HALF_OPEN);
+		call(breaker, null);
+		call(breaker, null);
+		assertThat(breaker.getState()).isEqualTo(MongoCircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void timeoutDuringTrialCallsReopensTheCircuit() throws Exception {
+		MongoCircuitBreaker breaker = new MongoCircuitBreaker(properties(), registry);
+		for (int i = 0; i < 8; i++) {
+			call(breaker, new MongoOperationTimeoutException("maxTimeMS"));
+		}
+		Thread.sleep(250);
+
+		call(breaker, new MongoOperationTimeoutException("maxTimeMS"));
+
+		assertThat(breaker.getState()).isEqualTo(MongoCircuitBreaker.State.OPEN);
+	}
+
+	private static void call(MongoCircuitBreaker breaker, Throwable failure) {
+		breaker.acquire("OrderRepository.findByDni");
+		breaker.record(failure);
+	}
+
+	private static MongoCircuitBreakerProperties properties() {
+		MongoCircuitBreakerProperties properties = new MongoCircuitBreakerProperties();
+		properties.setMinimumCalls(8);
+		properties.setTimeoutRateThreshold(0.5);
+		properties.setOpenDuration(Duration.ofMillis(200));
+		properties.setHalfOpenCalls(2);
+		return properties;
+	}
+}
@@ -0,0 +1,32 @@
+package com.diegoip.order.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+
+class MongoCommandRedactorTests {
+
+	@Test
+	void replacesFilterValuesKeepingFieldsAndOperators() {
+		BsonDocument find = BsonDocument.parse(
+				"{find: 'orders', filter: {dni: '12345678', total: {$gt: 100}, estado: {$in: ['A', 'B', 'C', 'D']}}}");
+
+		assertThat(MongoCommandRedactor.filterShape("find", find))
+				.isEqualTo("{dni: ?, total: {$gt: ?}, estado: {$in: [?, ?, ?, ...]}}")
+				.doesNotContain("12345678");
+		assertThat(MongoCommandRedactor.collection("find", find)).isEqualTo("orders");
+	}
+
+	@Test
+	void readsTheFilterOfUpdatesAndAggregations() {
+		BsonDocument update = BsonDocument.parse(
+				"{update: 'products', updates: [{q: {sku: 'TEC-1'}, u: {$set: {stock: 3}}}]}");
+		BsonDocument aggregate = BsonDocument.parse(
+				"{aggregate: 'orders', pipeline: [{$match: {dni: '12345678'}}], cursor: {}}");
+
+		assertThat(MongoCommandRedactor.filterShape("update", update)).isEqualTo("{sku: ?}");
+		assertThat(MongoCommandRedactor.filterShape("aggregate", aggregate)).isEqualTo("[{$match: {dni: ?}}]");
+		assertThat(MongoCommandRedactor.filterShape("getMore", update)).isNull();
+	}
+}
@@ -0,0 +1,43 @@
+package com.diegoip.order.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionId;
+import com.mongodb.connection.ConnectionPoolSettings;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolClosedEvent;
+import com.mongodb.event.ConnectionPoolCreatedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MongoConnectionPoolMetricsListenerTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final MongoConnectionPoolMetricsListener listener = new MongoConnectionPoolMetricsListener(registry);
+	private final ServerId serverId = new ServerId(new ClusterId(), new ServerAddress("mongo-1", 27017));
+
+	@Test
+	void closingThePoolRemovesEveryMeterOfTheServerIncludingReasonCounters() {
+		ConnectionId connectionId = new ConnectionId(serverId);
+		listener.connectionPoolCreated(new ConnectionPoolCreatedEvent(serverId, ConnectionPoolSettings.builder().build()));
+		listener.connectionCreated(new ConnectionCreatedEvent(connectionId));
+		listener.connectionCheckOutFailed(new ConnectionCheckOutFailedEvent(serverId, 1,
+				ConnectionCheckOutFailedEvent.Reason.TIMEOUT, 1_000_000));
+		listener.connectionClosed(new ConnectionClosedEvent(connectionId, ConnectionClosedEvent.Reason.STALE));
+		listener.connectionClosed(new ConnectionClosedEvent(connectionId, ConnectionClosedEvent.Reason.STALE));
+
+		assertThat(registry.get("mongodb.pool.checkout.failures").tag("reason", "timeout").counter().count()).isEqualTo(1);
+		assertThat(registry.get("mongodb.pool.connections.closed").tag("reason", "stale").counter().count()).isEqualTo(2);
+
+		listener.connectionPoolClosed(new ConnectionPoolClosedEvent(serverId));
+
+		assertThat(registry.getMeters()).isEmpty();
+	}
+}
@@ -0,0 +1,62 @@
+package com.diegoip.order.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.diegoip.order.config.SloProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+class SloComplianceEndpointTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final SloProperties properties = new SloProperties();
+	private final ObservationRegistry observationRegistry = ObservationRegistry.create();
+
+	SloComplianceEndpointTests() {
+		properties.setDefaultObjective(Duration.ofHours(1));
+		SloProperties.Objective strict = new SloProperties.Objective();
+		strict.setLatency(Duration.ZERO);
+		properties.getRoutes().put("GET /api/products/search", strict);
+		observationRegistry.observationConfig().observationHandler(new HttpSloObservationHandler(meterRegistry, properties));
+	}
+
+	@Test
+	void countsGoodAndTotalRequestsWhenEachRequestFinishes() {
+		request("/api/orders/dni/{dni}", 200);
+		request("/api/orders/dni/{dni}", 200);
+		request("/api/orders/dni/{dni}", 503);
+		request("/api/products/search", 200);
+		request("/actuator/health", 200);
+
+		var compliance = new SloComplianceEndpoint(meterRegistry, properties).compliance();
+
+		assertThat(compliance).containsOnlyKeys("GET /api/orders/dni/{dni}", "GET /api/products/search");
+		SloComplianceEndpoint.RouteCompliance orders = compliance.get("GET /api/orders/dni/{dni}");
+		assertThat(orders.requests()).isEqualTo(3);
+		assertThat(orders.withinObjective()).isEqualTo(2);
+		assertThat(orders.compliance()).isEqualTo(2.0 / 3);
+		SloComplianceEndpoint.RouteCompliance search = compliance.get("GET /api/products/search");
+		assertThat(search.requests()).isEqualTo(1);
+		assertThat(search.withinObjective()).isZero();
+		assertThat(meterRegistry.get(HttpSloObservationHandler.HTTP_SERVER_REQUESTS_SLO)
+				.tag("uri", "/api/orders/dni/{dni}").tag("result", "error").counter().count()).isEqualTo(1);
+	}
+
+	private void request(String pathPattern, int status) {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		response.setStatus(status);
+		ServerRequestObservationContext context =
+				new ServerRequestObservationContext(new MockHttpServletRequest("GET", pathPattern), response);
+		context.setPathPattern(pathPattern);
+		Observation.start("http.server.requests", () -> context, observationRegistry).stop();
+	}
+}
@@ -0,0 +1,40 @@
+package com.diegoip.order.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+class SlowMongoCommandLogTests {
+
+	@Test
+	void keepsTheSlowestCommandsWhenABurstOfSlightlySlowOnesArrives() {
+		SlowMongoCommandLog log = new SlowMongoCommandLog(3);
+		log.record(command("scan", 30_000));
+		for (int i = 0; i < 100; i++) {
+			log.record(command("find", 200 + i));
+		}
+
+		assertThat(log.slowest()).extracting(SlowMongoCommand::durationMs).containsExactly(30_000.0, 299.0, 298.0);
+		assertThat(log.slowest().get(0).command()).isEqualTo("scan");
+		assertThat(log.totalRecorded()).isEqualTo(101);
+	}
+
+	@Test
+	void clearEmptiesTheLogAndAcceptsFasterCommandsAgain() {
+		SlowMongoCommandLog log = new SlowMongoCommandLog(1);
+		log.record(command("scan", 5_000));
+		log.record(command("find", 300));
+		assertThat(log.slowest()).extracting(SlowMongoCommand::command).containsExactly("scan");
+
+		log.clear();
+		log.record(command("find", 300));
+
+		assertThat(log.slowest()).extracting(SlowMongoCommand::command).containsExactly("find");
+	}
+
+	private static SlowMongoCommand command(String name, double durationMs) {
+		return new SlowMongoCommand(Instant.now(), "ProductRepository.findAll", name, "products", null, durationMs, false);
+	}
+}
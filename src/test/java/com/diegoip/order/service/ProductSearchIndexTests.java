@@ -0,0 +1,119 @@
+package com.diegoip.order.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.diegoip.order.model.Product;
+import com.diegoip.order.repository.ProductRepository;
+
+class ProductSearchIndexTests {
+
+	private Supplier<List<Product>> findAll = List::of;
+	private final ProductSearchIndex index = new ProductSearchIndex(repository());
+
+	@Test
+	void ranksExactSkuThenSkuPrefixThenNamePrefixThenFuzzy() {
+		load(product("1", "TEC-100", "Teclado Mecánico"),
+				product("2", "TEC-1000", "Funda para teclado"),
+				product("3", "MOU-1", "Mouse tec inalámbrico"),
+				product("4", "MON-1", "Monitor"));
+
+		assertThat(ids(index.search("tec-100", 10))).containsExactly("1", "2");
+		assertThat(ids(index.search("teclado mecanico", 10))).containsExactly("1");
+		// El prefijo de SKU pesa más que el prefijo del nombre
+		assertThat(ids(index.search("tec", 10))).containsExactly("1", "2", "3");
+		// Error de tipeo: no hay prefijo, lo encuentra la búsqueda por trigramas
+		assertThat(ids(index.search("monitro", 10))).containsExactly("4");
+		assertThat(index.search("xyzw", 10)).isEmpty();
+	}
+
+	@Test
+	void returnsAtMostTheLimitKeepingTheBestMatches() {
+		List<Product> products = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			products.add(product(String.valueOf(i), "CAB-" + i, "Cable " + "x".repeat(i)));
+		}
+		load(products.toArray(Product[]::new));
+
+		List<Product> result = index.search("cable", 3);
+
+		assertThat(result).hasSize(3);
+		assertThat(ids(result)).containsExactly("0", "1", "2");
+		assertThat(index.search("cable", 0)).isEmpty();
+	}
+
+	@Test
+	void appliesIncrementalUpdates() {
+		load(product("1", "TEC-1", "Teclado"));
+
+		index.index(product("2", "AUR-1", "Auriculares"));
+		index.index(product("1", "TEC-1", "Parlante"));
+		assertThat(ids(index.search("auriculares", 10))).containsExactly("2");
+		assertThat(index.search("teclado", 10)).isEmpty();
+		assertThat(ids(index.search("parlante", 10))).containsExactly("1");
+
+		index.remove("2");
+		assertThat(index.search("auriculares", 10)).isEmpty();
+		assertThat(index.size()).isEqualTo(1);
+	}
+
+	@Test
+	void rejectsSearchesUntilTheIndexLoads() {
+		findAll = () -> {
+			throw new IllegalStateException("MongoDB no responde");
+		};
+
+		assertThat(index.reload()).isFalse();
+		assertThatThrownBy(() -> index.search("teclado", 10)).isInstanceOf(SearchIndexNotReadyException.class);
+
+		load(product("1", "TEC-1", "Teclado"));
+		assertThat(ids(index.search("teclado", 10))).containsExactly("1");
+	}
+
+	@Test
+	void keepsWritesThatArriveWhileReloading() {
+		findAll = () -> {
+			List<Product> snapshot = List.of(product("1", "TEC-1", "Teclado"), product("2", "AUR-1", "Auriculares"));
+			// Escrituras concurrentes a la lectura de MongoDB, que no aparecen en ella
+			index.index(product("3", "MON-1", "Monitor"));
+			index.remove("2");
+			return snapshot;
+		};
+
+		assertThat(index.reload()).isTrue();
+
+		assertThat(ids(index.search("monitor", 10))).containsExactly("3");
+		assertThat(index.search("auriculares", 10)).isEmpty();
+		assertThat(index.size()).isEqualTo(2);
+	}
+
+	private void load(Product... products) {
+		findAll = () -> List.of(products);
+		assertThat(index.reload()).isTrue();
+	}
+
+	private ProductRepository repository() {
+		return (ProductRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] {ProductRepository.class}, (proxy, method, args) -> {
+					if (method.getName().equals("findAllForSearchIndex")) {
+						return findAll.get();
+					}
+					throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	private static Product product(String id, String sku, String nombre) {
+		return new Product(id, sku, 1, nombre, "general");
+	}
+
+	private static List<String> ids(List<Product> products) {
+		return products.stream().map(Product::getId).toList();
+	}
+}
@@ -0,0 +1,104 @@
+package com.diegoip.order.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.diegoip.order.util.SensitiveDigest;
+import com.diegoip.order.util.SensitiveType;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SingleFlightTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final SingleFlight<String, String> flight =
+			new SingleFlight<>("test", SensitiveDigest::of, SensitiveType.DNI::mask, 10, registry);
+
+	@Test
+	void concurrentCallsForTheSameKeyShareOneQueryAndLaterCallsQueryAgain() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger queries = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				results.add(executor.submit(() -> flight.execute("12345678", () -> {
+					queries.incrementAndGet();
+					await(release);
+					return "pedidos";
+				})));
+			}
+			while (flight.getCoalesced() < 3) {
+				Thread.onSpinWait();
+			}
+			release.countDown();
+
+			for (Future<String> result : results) {
+				assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("pedidos");
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertThat(queries).hasValue(1);
+		assertThat(flight.getInFlight()).isZero();
+
+		// Sin consulta en curso no hay resultado guardado: se vuelve a leer
+		assertThat(flight.execute("12345678", () -> "actualizado")).isEqualTo("actualizado");
+		assertThat(flight.getExecuted()).isEqualTo(2);
+		assertThat(registry.get(SingleFlight.CALLS).tag("result", "coalesced").functionCounter().count()).isEqualTo(3);
+		assertThat(flight.topCoalescedKeys(5))
+				.singleElement()
+				.satisfies(key -> {
+					assertThat(key.key()).doesNotContain("12345678");
+					assertThat(key.label()).isEqualTo(SensitiveType.DNI.mask("12345678"));
+					assertThat(key.executed()).isEqualTo(2);
+					assertThat(key.coalesced()).isEqualTo(3);
+				});
+	}
+
+	@Test
+	void keysWithTheSameMaskedFormAreCountedApart() {
+		// Mismo DNI ofuscado (12***78), clientes distintos
+		flight.execute("12345678", () -> "a");
+		flight.execute("12999978", () -> "b");
+		flight.execute("12999978", () -> "b");
+
+		assertThat(flight.getTrackedKeys()).isEqualTo(2);
+		assertThat(flight.topCoalescedKeys(5))
+				.extracting(SingleFlight.KeyStats::executed)
+				.containsExactly(2L, 1L);
+		assertThat(flight.topCoalescedKeys(5))
+				.allSatisfy(key -> assertThat(key.label()).isEqualTo(SensitiveType.DNI.mask("12345678")))
+				.extracting(SingleFlight.KeyStats::key)
+				.doesNotHaveDuplicates();
+	}
+
+	@Test
+	void failuresReachEveryWaitingCallAndReleaseTheKey() {
+		assertThatThrownBy(() -> flight.execute("12345678", () -> {
+			throw new IllegalStateException("mongo caído");
+		})).isInstanceOf(IllegalStateException.class);
+
+		assertThat(flight.getInFlight()).isZero();
+		assertThat(flight.execute("12345678", () -> "ok")).isEqualTo("ok");
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package com.diegoip.order.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class LogMaskingEngineTests {
+
+	@Test
+	void masksDni() {
+		assertThat(LogMaskingEngine.mask("Buscando pedidos del DNI: 45873219"))
+				.isEqualTo("Buscando pedidos del DNI: 45***19");
+	}
+
+	@Test
+	void masksPhoneAndCard() {
+		assertThat(LogMaskingEngine.mask("tel 987654321, tarjeta 4111111111111111"))
+				.isEqualTo("tel ***321, tarjeta ***1111");
+	}
+
+	@Test
+	void masksEmail() {
+		assertThat(LogMaskingEngine.mask("contacto juan.perez@example.com enviado"))
+				.isEqualTo("contacto j***@example.com enviado");
+		assertThat(LogMaskingEngine.mask("ab@example.com")).isEqualTo("***@example.com");
+	}
+
+	@Test
+	void emailTakesPrecedenceOverDigits() {
+		assertThat(LogMaskingEngine.mask("12345678@mail.com")).isEqualTo("1***@mail.com");
+	}
+
+	@Test
+	void leavesDigitsInsideWordsUntouched() {
+		String message = "SKU-ABC12345678 pedido 1234567 lote 12345678901";
+		assertThat(LogMaskingEngine.mask(message)).isSameAs(message);
+	}
+
+	@Test
+	void returnsSameInstanceWhenNothingToMask() {
+		String message = "Obteniendo todos los productos";
+		assertThat(LogMaskingEngine.mask(message)).isSameAs(message);
+		assertThat(LogMaskingEngine.containsSensitiveData(message)).isFalse();
+		assertThat(LogMaskingEngine.mask(null)).isNull();
+	}
+
+	@Test
+	void findReportsEachMatch() {
+		String message = "dni=45873219 email=ana@example.org";
+		LogMaskingEngine.Match match = new LogMaskingEngine.Match();
+
+		assertThat(LogMaskingEngine.find(message, 0, match)).isTrue();
+		assertThat(match.kind()).isEqualTo(LogMaskingEngine.Kind.DNI);
+		assertThat(message.substring(match.start(), match.end())).isEqualTo("45873219");
+
+		assertThat(LogMaskingEngine.find(message, match.end(), match)).isTrue();
+		assertThat(match.kind()).isEqualTo(LogMaskingEngine.Kind.EMAIL);
+		StringBuilder sb = new StringBuilder();
+		LogMaskingEngine.appendMasked(message, match, sb);
+		assertThat(sb).hasToString("a***@example.org");
+
+		assertThat(LogMaskingEngine.find(message, match.end(), match)).isFalse();
+	}
+}